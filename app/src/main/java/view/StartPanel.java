@@ -2,7 +2,12 @@ package view;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import javax.swing.*;
+import model.WorkoutPlan;
 
 public class StartPanel extends JPanel {
     private final WorkoutApp app;
@@ -148,20 +153,28 @@ public class StartPanel extends JPanel {
         loading.add(loadingLabel, BorderLayout.CENTER);
         loading.setSize(300, 100);
         loading.setLocationRelativeTo(this);
-        
-        // Run plan generation on a new thread to avoid freezing the UI
-        new Thread(() -> {  
-            try {
-                SwingUtilities.invokeLater(() -> loading.setVisible(true));
-                app.generateAndShowPlan(goals, level, time, fav, special);
-                SwingUtilities.invokeLater(() -> loading.dispose());
-            } catch (Exception ex) {
-                SwingUtilities.invokeLater(() -> {
-                    loading.dispose();
-                    JOptionPane.showMessageDialog(this, "Failed to get workout plan from AI:\n" + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                });
+
+        // The controller generates the plan in the background; the callback comes back on the Swing thread
+        // The loading dialog goes away as soon as the first part of the plan shows up
+        CompletableFuture<WorkoutPlan> generation = app.generateAndShowPlan(goals, level, time, fav, special, loading::dispose);
+        // Closing the loading dialog cancels the generation
+        loading.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent we) {
+                generation.cancel(true);
             }
-        }).start();
+        });
+        generation.whenCompleteAsync((plan, ex) -> {
+            loading.dispose();
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause == null || cause instanceof CancellationException) return;
+            String message = cause instanceof TimeoutException ? "The AI took too long to answer." : cause.getMessage();
+            JOptionPane.showMessageDialog(this, "Failed to get workout plan from AI:\n" + message, "Error", JOptionPane.ERROR_MESSAGE);
+        }, SwingUtilities::invokeLater);
+        // Shown after the line above is queued, so the modal dialog can't block its own dispose
+        SwingUtilities.invokeLater(() -> {
+            if (!generation.isDone()) loading.setVisible(true);
+        });
     }
 
     // Styles the heading label
@@ -0,0 +1,149 @@
+package view;
+
+import controller.WorkoutController;
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.*;
+import model.WorkoutPlan;
+
+public class WorkoutApp extends JFrame {
+    // API key for the AI service (DONT SHARE)
+    public static final String API_KEY = "YOU THOUHT I WOULD LEAK MY API KEY? THINK AGAIN.";
+    // Colors for the app's dark theme
+    public static final Color BG = Color.BLACK;
+    public static final Color PANEL_BG = Color.BLACK;
+    public static final Color FIELD_BG = Color.BLACK;
+    public static final Color TEXT = Color.BLACK;
+
+    // CardLayout lets us switch between different screens (panels)
+    private CardLayout layout;
+    private JPanel mainPanel;
+    // The three main screens of the app (the plan and tracker screens are only built when first shown)
+    private StartPanel startPanel;
+    private WorkoutPlanPanel planPanel;
+    private WorkoutTrackerPanel trackerPanel;
+    // The controller connects the UI to the data and AI
+    private WorkoutController controller;
+    // Stores the last generated workout plan text
+    private String lastPlan;
+
+    // This is the main window setup
+    public WorkoutApp() {
+        // Get the controller (singleton pattern, so only one exists)
+        controller = WorkoutController.getInstance(API_KEY);
+        setTitle("AI Workout Generator");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(1000, 700); // window size
+        setLocationRelativeTo(null); // center on screen
+
+        // Use CardLayout so we can switch between screens easily
+        layout = new CardLayout();
+        mainPanel = new JPanel(layout);
+
+        // Only the start screen is made now, so the window shows up right away; the others are
+        // made the first time you go to them (see planPanel() and trackerPanel())
+        startPanel = new StartPanel(this);
+        mainPanel.add(startPanel, "START");
+
+        // Add the main panel to the window
+        add(mainPanel);
+
+        // Show the start screen first
+        showStart();
+    }
+
+    // Switch to the start screen
+    public void showStart() {
+        layout.show(mainPanel, "START");
+    }
+
+    // The plan screen, made the first time it's needed
+    private WorkoutPlanPanel planPanel() {
+        if (planPanel == null) {
+            planPanel = new WorkoutPlanPanel(this);
+            mainPanel.add(planPanel, "PLAN");
+        }
+        return planPanel;
+    }
+
+    // The tracker screen, made the first time it's needed (it fills in once the workout log has loaded)
+    private WorkoutTrackerPanel trackerPanel() {
+        if (trackerPanel == null) {
+            trackerPanel = new WorkoutTrackerPanel(this);
+            mainPanel.add(trackerPanel, "TRACKER");
+        }
+        return trackerPanel;
+    }
+
+    // Generate a workout plan using the AI in the background and stream it onto the plan screen.
+    // The plan screen is shown as soon as the first text arrives, and 'onFirstText' is run then.
+    // The returned future completes on the Swing event thread once the whole plan is shown
+    // (or with the error, which the caller reports). Cancelling it cancels the generation.
+    public CompletableFuture<WorkoutPlan> generateAndShowPlan(String goals, String experience, String time, String fav, String special,
+                                                              Runnable onFirstText) {
+        boolean[] started = {false}; // only touched on the Swing thread
+        CompletableFuture<WorkoutPlan> generation = controller.generateWorkoutPlanStreaming(goals, experience, time, fav, special,
+                text -> SwingUtilities.invokeLater(() -> {
+                    if (!started[0]) {
+                        started[0] = true;
+                        planPanel().startStreaming();
+                        layout.show(mainPanel, "PLAN");
+                        onFirstText.run();
+                    }
+                    planPanel().appendWorkoutText(text);
+                }));
+        CompletableFuture<WorkoutPlan> shown = generation.whenCompleteAsync((plan, e) -> {
+            if (plan != null) showPlan(plan);
+        }, SwingUtilities::invokeLater);
+        shown.whenComplete((plan, e) -> {
+            if (shown.isCancelled()) generation.cancel(true);
+        });
+        return shown;
+    }
+
+    // Show a generated plan on the plan screen (call on the Swing event thread)
+    public void showPlan(WorkoutPlan plan) {
+        this.lastPlan = plan.getContent(); // save the plan text
+        planPanel().setWorkoutPlan(plan); // show the plan in the plan panel
+        layout.show(mainPanel, "PLAN"); // switch to the plan screen
+    }
+
+    // Switch to the workout tracker screen (the table keeps itself up to date, only the plan may have changed)
+    public void showWorkoutTracker() {
+        trackerPanel().updatePlanDisplay();
+        layout.show(mainPanel, "TRACKER");
+    }
+
+    // Get the controller so panels can add/remove workouts, etc.
+    public WorkoutController getController() {
+        return controller;
+    }
+
+    // Get the last generated plan text (used by tracker panel to display the plan)
+    public String getLastGeneratedPlan() {
+        if (lastPlan == null || lastPlan.isEmpty()) {
+            String planContent = controller.getCurrentPlanContent();
+            if (planContent != null) {
+                lastPlan = planContent;
+            }
+        }
+        return lastPlan;
+    }
+
+    // This is the entry point for the whole app
+    public static void main(String[] args) {
+        // Start loading the workout log in the background right away, while Swing gets going
+        WorkoutController.getInstance(API_KEY);
+        try {
+            // Make the app look like the user's operating system
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        // Start the app on the Swing event thread
+        SwingUtilities.invokeLater(() -> {
+            WorkoutApp app = new WorkoutApp();
+            app.setVisible(true);
+        });
+    }
+}
\ No newline at end of file
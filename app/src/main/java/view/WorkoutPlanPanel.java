@@ -72,6 +72,11 @@ public class WorkoutPlanPanel extends JPanel {
         btnPanel.add(trackerBtn);
 
         add(btnPanel, BorderLayout.SOUTH);
+
+        // Saving adds to the workout log, which may still be loading in the background; the
+        // button waits for it so the Swing thread never does.
+        saveBtn.setEnabled(false);
+        app.getController().whenWorkoutsLoaded().thenRunAsync(() -> saveBtn.setEnabled(true), SwingUtilities::invokeLater);
     }
 
     // Sets the current workout plan and updates the display
@@ -80,6 +85,17 @@ public class WorkoutPlanPanel extends JPanel {
         setWorkoutText(plan.getContent());
     }
 
+    // Clears the plan area for a plan that is about to be streamed in
+    public void startStreaming() {
+        this.plan = null; // nothing to save until the whole plan is in
+        planArea.setText("");
+    }
+
+    // Adds a piece of a plan that is still being generated
+    public void appendWorkoutText(String text) {
+        planArea.append(text);
+    }
+
     // Sets the text in the plan area and scrolls to the top
     public void setWorkoutText(String text) {
         planArea.setText(text);
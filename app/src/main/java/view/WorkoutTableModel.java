@@ -0,0 +1,207 @@
+package view;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+import model.Metrics;
+import model.Workout;
+import model.WorkoutEvent;
+import model.WorkoutEventBus;
+
+/**
+ * Table model for the workout log.
+ *
+ * Holds the workouts themselves (not pre-formatted rows), and only formats a cell when the table
+ * asks for it, which is just the rows on screen. Adding or removing a workout tells the table
+ * about that one row instead of rebuilding everything. Subscribed to the controller's workout
+ * events (delivered on the Swing thread), it keeps itself up to date. Only used on the Swing thread.
+ *
+ * Workouts sit in slots that never move: a removed workout just leaves its slot empty, and a
+ * Fenwick tree counts the filled slots, so turning a row into a slot and back takes O(log n)
+ * and a delete doesn't renumber the rows below it. The empty slots are squeezed out once they
+ * outnumber the filled ones.
+ */
+public class WorkoutTableModel extends AbstractTableModel implements WorkoutEventBus.Listener {
+    private static final String[] COLUMNS = {"Date", "Exercise", "Duration/Details", "Notes"};
+    // The workouts in the order they were added (same order as WorkoutController.getAllWorkouts),
+    // null where one was removed; 'used' slots are taken
+    private Workout[] slots = new Workout[16];
+    private int used;
+    // Fenwick tree over the slots (1-based): tree[i] counts the workouts in slots (i - lowbit(i), i]
+    private int[] tree = new int[17];
+    // Number of rows (filled slots)
+    private int live;
+    // Slot of each workout by id (workouts without an id yet aren't in here, they're found by scanning)
+    private final Map<Long, Integer> slotOf = new HashMap<>();
+    // One formatter for every date cell (safe because it's only used on the Swing thread)
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    private static final Metrics.Timer APPLY_TIME = Metrics.timer("ui_apply_workout_events_seconds", "Time to apply a batch of workout changes to the table");
+
+    // Replaces all rows at once (one table event)
+    public void setWorkouts(List<Workout> all) {
+        fill(all);
+        fireTableDataChanged();
+    }
+
+    // Adds a workout as the last row (or just redraws its row if it's already shown)
+    public void addWorkout(Workout w) {
+        if (slotOf(w) >= 0) {
+            updateWorkout(w);
+            return;
+        }
+        if (used == slots.length) {
+            slots = Arrays.copyOf(slots, used * 2);
+            tree = Arrays.copyOf(tree, used * 2 + 1);
+        }
+        int slot = used++;
+        slots[slot] = w;
+        // The new node covers (i - lowbit(i), i]: the slots before it in that range, plus itself
+        int i = slot + 1;
+        tree[i] = 1 + prefix(i - 1) - prefix(i - (i & -i));
+        if (w.getId() != 0) slotOf.put(w.getId(), slot);
+        int row = live++;
+        fireTableRowsInserted(row, row);
+    }
+
+    // Removes a workout's row, if it's in the table
+    public void removeWorkout(Workout w) {
+        int slot = slotOf(w);
+        if (slot < 0) return;
+        int row = prefix(slot + 1) - 1;
+        slots[slot] = null;
+        for (int i = slot + 1; i <= used; i += i & -i) tree[i]--;
+        if (w.getId() != 0) slotOf.remove(w.getId());
+        live--;
+        if (used - live > live && used > 64) fill(rows()); // same rows, just without the empty slots
+        fireTableRowsDeleted(row, row);
+    }
+
+    // Shows the new copy of a changed workout in the row of the old one
+    public void updateWorkout(Workout w) {
+        int slot = slotOf(w);
+        if (slot >= 0) {
+            slots[slot] = w;
+            int row = prefix(slot + 1) - 1;
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    // Applies a batch of changes from the workout log
+    @Override
+    public void workoutsChanged(List<WorkoutEvent> events) {
+        long start = System.nanoTime();
+        for (WorkoutEvent e : events) {
+            switch (e.getType()) {
+                case ADDED: addWorkout(e.getWorkout()); break;
+                case REMOVED: removeWorkout(e.getWorkout()); break;
+                case UPDATED: updateWorkout(e.getWorkout()); break;
+                case BULK_LOADED: setWorkouts(e.getWorkouts()); break;
+            }
+        }
+        APPLY_TIME.recordSince(start);
+    }
+
+    // The workout shown in a row
+    public Workout getWorkoutAt(int row) {
+        if (row < 0 || row >= live) throw new IndexOutOfBoundsException("Row " + row + " of " + live);
+        return slots[slotAt(row)];
+    }
+
+    @Override
+    public int getRowCount() {
+        return live;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // can't edit cells directly
+    }
+
+    // Slot of a workout (or of an older copy with the same id), or -1
+    private int slotOf(Workout w) {
+        if (w.getId() != 0) {
+            Integer slot = slotOf.get(w.getId());
+            return slot == null ? -1 : slot;
+        }
+        for (int slot = used - 1; slot >= 0; slot--) { // usually one of the newest
+            if (slots[slot] == w) return slot;
+        }
+        return -1;
+    }
+
+    // Number of workouts in the first n slots
+    private int prefix(int n) {
+        int sum = 0;
+        for (int i = n; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    // Slot holding the workout in 'row', found by walking down the tree
+    private int slotAt(int row) {
+        int pos = 0;
+        int remaining = row + 1;
+        for (int step = Integer.highestOneBit(used); step > 0; step >>= 1) {
+            if (pos + step <= used && tree[pos + step] < remaining) {
+                pos += step;
+                remaining -= tree[pos];
+            }
+        }
+        return pos; // tree index pos + 1, so slot pos
+    }
+
+    // The workouts in row order
+    private List<Workout> rows() {
+        List<Workout> all = new ArrayList<>(live);
+        for (int slot = 0; slot < used; slot++) if (slots[slot] != null) all.add(slots[slot]);
+        return all;
+    }
+
+    // Puts these workouts in the first slots and builds the tree in one pass
+    private void fill(List<Workout> all) {
+        int capacity = Math.max(16, all.size());
+        slots = new Workout[capacity];
+        tree = new int[capacity + 1];
+        slotOf.clear();
+        used = 0;
+        for (Workout w : all) {
+            slots[used] = w;
+            if (w.getId() != 0) slotOf.put(w.getId(), used);
+            used++;
+        }
+        live = used;
+        for (int i = 1; i <= used; i++) {
+            tree[i]++;
+            int parent = i + (i & -i);
+            if (parent <= used) tree[parent] += tree[i];
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Workout w = getWorkoutAt(row);
+        switch (column) {
+            case 0: return dateFormat.format(w.getDate());
+            case 1: return w.getName();
+            case 2:
+                // If the description has sets/reps, show that, otherwise show duration
+                String desc = w.getDescription();
+                if (desc.contains("sets") && desc.contains("reps")) return desc;
+                return w.getDuration() + " mins";
+            default: return w.getNotes();
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package view;
 
-import controller.WorkoutController;
 import java.awt.*;
 import java.io.File;
-import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.List;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.*;
+import model.Metrics;
 import model.Workout;
 
 /**
@@ -19,7 +17,7 @@ public class WorkoutTrackerPanel extends JPanel {
     private final WorkoutApp app;
     // Table and its model for showing all your workouts
     private JTable table;
-    private DefaultTableModel model;
+    private WorkoutTableModel model;
     // Buttons for navigation and actions
     private JButton backBtn, addBtn, delBtn;
     // Where the workout plan is shown
@@ -31,6 +29,8 @@ public class WorkoutTrackerPanel extends JPanel {
     private JTextArea notesField;
     // Radio buttons to pick how you want to track (duration or sets/reps)
     private JRadioButton durationRadio, setsRepsRadio;
+    // How long reloading the table takes on the Swing thread
+    private static final Metrics.Timer REFRESH_TIME = Metrics.timer("ui_refresh_workouts_seconds", "Time reloading the workout table held up the Swing thread");
 
     // Some colors for the dark theme
     private static final Color BG_COLOR = new Color(50,50,50); // dark gray/black
@@ -83,8 +83,14 @@ public class WorkoutTrackerPanel extends JPanel {
         JPanel btnPanel = createButtonPanel();
         add(btnPanel, BorderLayout.SOUTH);
 
-        // Load the workouts into the table when this panel is created
-        refreshWorkouts();
+        // Once the workout log has loaded (it may still be loading in the background), keep the
+        // table in step with it and show what's there now. Until then there's nothing to add to.
+        addBtn.setEnabled(false);
+        // Subscribing hands back the log as of that moment, so no change is missed or shown twice.
+        app.getController().whenWorkoutsLoaded().thenRunAsync(() -> {
+            showWorkouts(app.getController().addWorkoutListener(model, SwingUtilities::invokeLater));
+            addBtn.setEnabled(true);
+        }, SwingUtilities::invokeLater);
     }
 
     // Makes the panel that shows your workout plan and a button to open the plan file
@@ -339,13 +345,7 @@ public class WorkoutTrackerPanel extends JPanel {
 
     // Sets up the table for showing workouts
     private void createWorkoutTable() {
-        String[] columnNames = {"Date", "Exercise", "Duration/Details", "Notes"};
-        model = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // can't edit cells directly
-            }
-        };
+        model = new WorkoutTableModel();
 
         table = new JTable(model);
         table.setBackground(FIELD_COLOR);
@@ -369,36 +369,16 @@ public class WorkoutTrackerPanel extends JPanel {
         columnModel.getColumn(3).setPreferredWidth(200);
     }
 
-    // Loads workouts from the controller and updates the table
-    public void refreshWorkouts() {
-        WorkoutController controller = app.getController();
-        model.setRowCount(0); // clear the table
-        List<Workout> workouts = controller.getAllWorkouts();
-
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-        for (Workout workout : workouts) {
-            String dateStr = sdf.format(workout.getDate());
-            String detailsStr;
-
-            // If the description has sets/reps, show that, otherwise show duration
-            if (workout.getDescription().contains("sets") && workout.getDescription().contains("reps")) {
-                detailsStr = workout.getDescription();
-            } else {
-                detailsStr = workout.getDuration() + " mins";
-            }
-
-            model.addRow(new Object[]{
-                dateStr,
-                workout.getName(),
-                detailsStr,
-                workout.getNotes()
-            });
-        }
+    // Puts these workouts in the table and updates the plan display
+    private void showWorkouts(java.util.List<Workout> all) {
+        long start = System.nanoTime();
+        model.setWorkouts(all); // cells get formatted as they're shown
 
         delBtn.setEnabled(false); // disable delete until a row is selected
 
         // Update the workout plan display on the left
         updatePlanDisplay();
+        REFRESH_TIME.recordSince(start);
     }
 
     // Shows the add workout form and resets all fields
@@ -474,10 +454,14 @@ public class WorkoutTrackerPanel extends JPanel {
             }
         }
 
-        // Add the workout using the controller
-        app.getController().addWorkout(name, new Date(), duration, description, notes);
+        // Add the workout using the controller once the log has loaded (the Add button waits for
+        // that too, so this is normally right away); the table hears about it and adds just that row
+        Date date = new Date();
+        int minutes = duration;
+        String desc = description;
+        app.getController().whenWorkoutsLoaded().thenRunAsync(
+                () -> app.getController().addWorkout(name, date, minutes, desc, notes), SwingUtilities::invokeLater);
 
-        refreshWorkouts(); // update the table
         inputPanel.setVisible(false); // hide the form
     }
 
@@ -496,11 +480,10 @@ public class WorkoutTrackerPanel extends JPanel {
         );
 
         if (confirm == JOptionPane.YES_OPTION) {
-            List<Workout> workouts = app.getController().getAllWorkouts();
-            if (selectedRow < workouts.size()) {
-                app.getController().removeWorkout(workouts.get(selectedRow));
-                refreshWorkouts();
-            }
+            // Delete by id, so it's the right workout however the table is sorted
+            Workout workout = model.getWorkoutAt(table.convertRowIndexToModel(selectedRow));
+            app.getController().removeWorkout(workout.getId()); // the table drops the row when it hears about it
+            delBtn.setEnabled(false); // the selection went away with the row
         }
     }
 
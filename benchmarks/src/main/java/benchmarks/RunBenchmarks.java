@@ -0,0 +1,33 @@
+package benchmarks;
+
+import java.io.File;
+import java.time.LocalDate;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the workout benchmarks with the GC profiler (allocation rate per operation) and saves
+ * the results as benchmark-results/YYYY-MM-DD.json, so runs can be compared over time.
+ *
+ *   java -jar benchmarks/target/benchmarks.jar                (everything)
+ *   java -jar benchmarks/target/benchmarks.jar WorkoutLoad    (only benchmarks matching a pattern)
+ */
+public class RunBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "benchmarks\\.Workout.*";
+        File results = new File("benchmark-results", LocalDate.now() + ".json");
+        results.getParentFile().mkdirs();
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.getPath())
+                .build();
+        new Runner(options).run();
+        System.out.println("Results saved to " + results);
+    }
+}
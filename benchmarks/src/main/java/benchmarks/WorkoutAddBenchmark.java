@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Workout;
+import model.WorkoutManager;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Latency of WorkoutManager.add on top of an existing log, as a distribution (SampleTime
+ * reports percentiles). With writeBehind=false every add syncs its journal record before
+ * returning; with writeBehind=true it only queues it, and the flush is paid once per iteration.
+ * Background compactions of the snapshot happen as the journal grows, just like in the app.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WorkoutAddBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private WorkoutHistory history;
+    private WorkoutManager manager;
+    private final Random random = new Random(7);
+    private long nextDate = WorkoutHistory.END;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        history = WorkoutHistory.create(size, "txt");
+        manager = new WorkoutManager(history.getSnapshot().getPath());
+        manager.setWriteBehind(writeBehind);
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        manager.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.flush();
+        history.delete();
+    }
+
+    @Benchmark
+    public Workout add() {
+        // New workouts are the newest, like someone logging today's session
+        nextDate += 60_000;
+        Workout w = WorkoutHistory.randomWorkout(random, 0, nextDate);
+        manager.add(w);
+        return w;
+    }
+}
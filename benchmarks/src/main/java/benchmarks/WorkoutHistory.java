@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import model.Workout;
+import model.WorkoutFormat;
+
+/**
+ * A made-up workout log of a given size, written to its own temp directory.
+ *
+ * The workouts are spread evenly (with some jitter) over TEN_YEARS ending at END, use a few dozen
+ * exercise names, and come from a fixed seed, so every run benchmarks exactly the same data.
+ */
+final class WorkoutHistory {
+    // 2025-01-01 00:00 UTC
+    static final long END = 1735689600000L;
+    static final long TEN_YEARS = 10L * 365 * 24 * 60 * 60 * 1000;
+    static final long START = END - TEN_YEARS;
+
+    private static final String[] EXERCISES = {
+        "Running", "Cycling", "Swimming", "Rowing", "Walking", "Hiking", "Yoga", "Pilates",
+        "Bench Press", "Squat", "Deadlift", "Overhead Press", "Pull-ups", "Push-ups", "Lunges", "Plank",
+        "Bicep Curls", "Tricep Dips", "Leg Press", "Lat Pulldown", "Burpees", "Jump Rope", "Kettlebell Swings",
+        "Box Jumps", "Stretching", "Elliptical", "Stair Climber", "Boxing", "Dance", "Climbing"
+    };
+
+    private final Path dir;
+    private final File snapshot;
+
+    private WorkoutHistory(Path dir, File snapshot) {
+        this.dir = dir;
+        this.snapshot = snapshot;
+    }
+
+    // Writes 'size' workouts to a fresh temp directory, as workouts.txt or workouts.bin
+    static WorkoutHistory create(int size, String extension) throws IOException {
+        Path dir = Files.createTempDirectory("workout-bench");
+        File snapshot = dir.resolve("workouts." + extension).toFile();
+        WorkoutFormat.forFile(snapshot.getPath()).write(snapshot, generate(size), 0);
+        return new WorkoutHistory(dir, snapshot);
+    }
+
+    // 'size' workouts in date order, with ids 1..size
+    static List<Workout> generate(int size) {
+        Random random = new Random(42);
+        List<Workout> workouts = new ArrayList<>(size);
+        long step = TEN_YEARS / Math.max(size, 1);
+        for (int i = 0; i < size; i++) {
+            long millis = START + i * step + (long) (random.nextDouble() * step);
+            workouts.add(randomWorkout(random, i + 1, millis));
+        }
+        return workouts;
+    }
+
+    // One workout on the given date (id 0 means WorkoutManager assigns one)
+    static Workout randomWorkout(Random random, long id, long millis) {
+        String name = EXERCISES[random.nextInt(EXERCISES.length)];
+        int duration = 10 + random.nextInt(80);
+        String desc = random.nextBoolean()
+                ? (2 + random.nextInt(4)) + " sets x " + (5 + random.nextInt(11)) + " reps"
+                : duration + " minutes";
+        String notes = random.nextInt(4) == 0 ? "Felt good" : "";
+        return new Workout(id, name, new Date(millis), duration, desc, notes);
+    }
+
+    // The snapshot file (the journal goes next to it)
+    File getSnapshot() {
+        return snapshot;
+    }
+
+    // Removes the temp directory and everything in it
+    void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(p);
+        }
+    }
+}
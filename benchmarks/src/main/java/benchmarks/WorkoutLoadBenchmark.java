@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import model.WorkoutManager;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * How long WorkoutManager takes to load a log from disk, in the text and binary formats.
+ * Each call is one cold start of the app's workout log (snapshot read plus index build).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WorkoutLoadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"txt", "bin"})
+    public String format;
+
+    private WorkoutHistory history;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        history = WorkoutHistory.create(size, format);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        history.delete();
+    }
+
+    @Benchmark
+    public WorkoutManager load() {
+        return new WorkoutManager(history.getSnapshot().getPath());
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import model.Workout;
+import model.WorkoutManager;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of the read paths on a loaded log: a month of workouts by date, the most recent
+ * ones, and a year's total minutes from the column snapshot. Query windows are picked at random
+ * from a fixed set, so no one call is cheaper just because the previous one warmed it up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WorkoutQueryBenchmark {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final int WINDOWS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"20"})
+    public int recent;
+
+    private WorkoutHistory history;
+    private WorkoutManager manager;
+    private final long[] windowStarts = new long[WINDOWS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        history = WorkoutHistory.create(size, "txt");
+        manager = new WorkoutManager(history.getSnapshot().getPath());
+        Random random = new Random(11);
+        long span = WorkoutHistory.TEN_YEARS - 365 * DAY;
+        for (int i = 0; i < WINDOWS; i++) windowStarts[i] = WorkoutHistory.START + (long) (random.nextDouble() * span);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        history.delete();
+    }
+
+    private long nextWindow() {
+        return windowStarts[next++ & (WINDOWS - 1)];
+    }
+
+    @Benchmark
+    public List<Workout> getByDate30Days() {
+        long start = nextWindow();
+        return manager.getByDate(new Date(start), new Date(start + 30 * DAY));
+    }
+
+    @Benchmark
+    public List<Workout> getRecent() {
+        return manager.getRecent(recent);
+    }
+
+    @Benchmark
+    public long columnsTotalDurationYear() {
+        long start = nextWindow();
+        return manager.getColumns().totalDuration(start, start + 365 * DAY);
+    }
+}
@@ -0,0 +1,444 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import model.AiClient;
+import model.Metrics;
+import model.MetricsServer;
+import model.PlanBatch;
+import model.PlanManager;
+import model.PlanRequest;
+import model.PlanStore;
+import model.SingleFlight;
+import model.Workout;
+import model.WorkoutColumns;
+import model.WorkoutEventBus;
+import model.WorkoutManager;
+import model.WorkoutPlan;
+
+/**
+ * Controller class that mediates between the UI and the model.
+ * Implements the Singleton pattern.
+ */
+public class WorkoutController {
+    // This is the only instance of the controller (singleton pattern)
+    private static WorkoutController instance;
+    // Handles all the workout data (add, remove, get, etc.). Loading a long log takes a while, so it's
+    // read on a background thread while the window comes up; see workouts() and whenWorkoutsLoaded().
+    private final CompletableFuture<WorkoutManager> workoutManager;
+    // Talks to the AI to generate plans
+    private volatile AiClient aiClient;
+    // Stores the current workout plan (set from the background generation threads too)
+    private volatile WorkoutPlan plan;
+    // Every plan ever generated; the newest one is the current plan
+    private final PlanStore planStore = new PlanStore();
+    // How many plans can be generated at the same time, and how many more can wait in line
+    private static final int MAX_PARALLEL_PLANS = 4;
+    private static final int MAX_QUEUED_PLANS = 16;
+    // How long a plan generation may take before it's given up on
+    private static final long PLAN_TIMEOUT_SECONDS = 90;
+    // Batches: how many of a batch's plans run at the same time, and how many may start per second
+    private static final int BATCH_PARALLELISM = 8;
+    private static final double BATCH_REQUESTS_PER_SECOND = 4.0;
+    // Background threads that run plan generations, so the UI doesn't need its own threads
+    private final ThreadPoolExecutor planExecutor = createPlanExecutor();
+    // Generations that are running right now, by request key, so identical requests share one
+    // AI call and one save (the progress reports are the streamed pieces of text)
+    private final SingleFlight<String, String, WorkoutPlan> planFlights = new SingleFlight<>();
+
+    // How long workout changes may sit in memory before they're written out together
+    private static final long DEFAULT_WRITE_DELAY_MILLIS = 250;
+    private volatile long writeDelayMillis = DEFAULT_WRITE_DELAY_MILLIS;
+    // Background thread that writes workout changes to disk, so saving never blocks the UI
+    private final ScheduledExecutorService workoutWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "workout-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Port for the local metrics endpoint (-Dmetrics.port=9464), 0 to not serve metrics at all
+    private static final int METRICS_PORT = Integer.getInteger("metrics.port", 0);
+    private MetricsServer metricsServer;
+    private static final Metrics.Timer PLAN_QUEUE_TIME = Metrics.timer("plan_generation_queue_seconds", "Time a plan generation waited for a free background thread");
+    private static final Metrics.Timer PLAN_TIME = Metrics.timer("plan_generation_seconds", "Time to generate and store a plan, from request to result");
+    private static final Metrics.Counter PLANS_REJECTED = Metrics.counter("plan_generations_rejected_total", "Plan generations turned away because too many were waiting");
+    private static final Metrics.Counter PLANS_FAILED = Metrics.counter("plan_generations_failed_total", "Plan generations that failed, timed out or were cancelled");
+
+    // Private constructor so only one controller can be made
+    private WorkoutController(String apiKey) {
+        this.aiClient = new AiClient(apiKey);
+        this.workoutManager = CompletableFuture.supplyAsync(() -> {
+            WorkoutManager manager = new WorkoutManager();
+            // Workout changes apply in memory right away and get written in batches in the background;
+            // whatever is still waiting is written when the app exits
+            manager.setWriteBehind(true);
+            return manager;
+        }, r -> {
+            Thread t = new Thread(r, "workout-loader");
+            t.setDaemon(true);
+            t.start();
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "workout-flush-on-exit"));
+        if (METRICS_PORT > 0) startMetricsServer(METRICS_PORT);
+    }
+
+    // Completes (on the loading thread) once the workout log is loaded; after that no workout
+    // method waits. Screens that show workouts should wait for this instead of blocking on it.
+    public CompletableFuture<Void> whenWorkoutsLoaded() {
+        return workoutManager.thenApply(m -> null);
+    }
+
+    // The workout log, waiting for it to finish loading if it hasn't yet
+    private WorkoutManager workouts() {
+        return workoutManager.join();
+    }
+
+    // Serves the metrics on localhost:'port' (/metrics for Prometheus, / for a readable dump).
+    // Returns the port it listens on, or -1 if it couldn't start.
+    public synchronized int startMetricsServer(int port) {
+        if (metricsServer != null) return metricsServer.getPort();
+        try {
+            metricsServer = new MetricsServer(port);
+            System.out.println("Metrics at http://127.0.0.1:" + metricsServer.getPort() + "/metrics");
+            return metricsServer.getPort();
+        } catch (IOException e) {
+            System.err.println("Error starting metrics server: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Every counter and timer so far, one per line
+    public String dumpMetrics() {
+        return Metrics.dump();
+    }
+
+    // Gets the one and only controller instance (makes it if it doesn't exist yet)
+    public static synchronized WorkoutController getInstance(String apiKey) {
+        if (instance == null) {
+            instance = new WorkoutController(apiKey);
+        }
+        return instance;
+    }
+
+    // Asks the AI to make a workout plan, saves it, and returns it (blocks until the AI answers).
+    // If the same plan is already being generated, this waits for that one instead.
+    public WorkoutPlan generateWorkoutPlan(String goals, String level, String time, String fav, String special) throws IOException {
+        try {
+            return generateWorkoutPlanAsync(goals, level, time, fav, special).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating the workout plan");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    // Same as generateWorkoutPlan, but runs in the background and gives up after the default timeout
+    public CompletableFuture<WorkoutPlan> generateWorkoutPlanAsync(String goals, String level, String time, String fav, String special) {
+        return generateWorkoutPlanAsync(goals, level, time, fav, special, PLAN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Generates a plan on the background threads. The future completes with the saved plan,
+    // or with a TimeoutException after 'timeout'. Cancelling it (or timing out) interrupts the
+    // generation and the plan is not saved; once the plan is being saved it's too late for
+    // either, and the future completes with the plan. Callbacks run on the background thread, so
+    // Swing code should use whenCompleteAsync(..., SwingUtilities::invokeLater).
+    // Requests identical to one already running join it (see AiClient.requestKey). A request that
+    // joins shares the running generation's timeout: it gives up when the first caller's
+    // 'timeout' runs out, whatever it passed itself.
+    public CompletableFuture<WorkoutPlan> generateWorkoutPlanAsync(String goals, String level, String time, String fav, String special,
+                                                                    long timeout, TimeUnit unit) {
+        AiClient client = this.aiClient;
+        return planFlights.run(AiClient.requestKey(goals, level, time, fav, special), null,
+                progress -> submitGeneration(() -> client.generateWorkoutPlan(goals, level, time, fav, special),
+                        goals, level, time, fav, special, timeout, unit));
+    }
+
+    // Like generateWorkoutPlanAsync, but streams the plan: 'onText' gets each piece of text as soon
+    // as the AI sends it (on a background thread), and the future completes with the whole plan.
+    // Joining a generation that is already running replays the text streamed so far, and shares
+    // that generation's timeout as with generateWorkoutPlanAsync.
+    public CompletableFuture<WorkoutPlan> generateWorkoutPlanStreaming(String goals, String level, String time, String fav, String special,
+                                                                        Consumer<String> onText) {
+        AiClient client = this.aiClient;
+        return planFlights.run(AiClient.requestKey(goals, level, time, fav, special), onText,
+                progress -> submitGeneration(() -> client.generateWorkoutPlanStreaming(goals, level, time, fav, special, progress),
+                        goals, level, time, fav, special, PLAN_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    // Generates plans for many clients at once (see PlanBatch). Plan i is saved to
+    // outputDir/plan-<i+1>.txt and given to the listener as soon as it's ready; the current
+    // plan is left alone. The future completes with all plans in request order.
+    public CompletableFuture<List<WorkoutPlan>> generateBatch(List<PlanRequest> requests, File outputDir, PlanBatch.Listener listener) {
+        PlanBatch batch = new PlanBatch(this.aiClient, BATCH_PARALLELISM, BATCH_REQUESTS_PER_SECOND, PLAN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return batch.run(requests, outputDir, listener);
+    }
+
+    // Generates plans with this client from now on (e.g. one pointed at a LocalGeminiServer);
+    // generations already running keep the client they started with
+    public void setAiClient(AiClient client) {
+        this.aiClient = client;
+    }
+
+    // Counts of generations started and of requests that joined one already running
+    public SingleFlight<String, String, WorkoutPlan> getPlanFlights() {
+        return planFlights;
+    }
+
+    // Runs one plan generation on the background threads, then saves and returns the plan
+    private CompletableFuture<WorkoutPlan> submitGeneration(Callable<String> generate, String goals, String level, String time,
+                                                            String fav, String special, long timeout, TimeUnit unit) {
+        Generation result = new Generation();
+        long submitted = System.nanoTime();
+        Future<?> task;
+        try {
+            task = planExecutor.submit(() -> {
+                PLAN_QUEUE_TIME.recordSince(submitted);
+                try {
+                    String content = generate.call();
+                    WorkoutPlan p = new WorkoutPlan(content, goals, level, time, fav, special);
+                    // Only keep the plan if nobody cancelled or timed out while we were waiting on the AI;
+                    // from here on neither can happen, so whoever asked gets the plan that was kept
+                    if (result.startSaving()) {
+                        try {
+                            result.finishSaving(savePlan(p), null);
+                        } catch (Throwable e) {
+                            result.finishSaving(null, e);
+                        }
+                    }
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            PLANS_REJECTED.increment();
+            result.completeExceptionally(new IOException("Too many workout plans are being generated, please try again shortly"));
+            return result;
+        }
+        result.orTimeout(timeout, unit);
+        result.whenComplete((p, e) -> {
+            PLAN_TIME.recordSince(submitted);
+            if (e != null) {
+                PLANS_FAILED.increment();
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Makes a generated plan the current one: adds it to the history and writes the plan file.
+    // One at a time, so the history, the current plan and the file all end on the same plan.
+    private synchronized WorkoutPlan savePlan(WorkoutPlan p) {
+        p = storePlan(p);
+        this.plan = p;
+        PlanManager.savePlan(p); // readable copy of the current plan
+        return p;
+    }
+
+    // The future of one plan generation. Saving the plan and timing out or cancelling exclude
+    // each other, so a plan is saved exactly when the caller gets it.
+    private static final class Generation extends CompletableFuture<WorkoutPlan> {
+        // Set (under the lock) by whichever comes first; the future is completed after letting go,
+        // so its callbacks don't run under the lock
+        private boolean saving, failing;
+
+        // Returns false if the generation already timed out, failed or was cancelled
+        synchronized boolean startSaving() {
+            if (failing || isDone()) return false;
+            saving = true;
+            return true;
+        }
+
+        // Completes with the saved plan, or with what went wrong saving it
+        void finishSaving(WorkoutPlan p, Throwable e) {
+            if (e == null) complete(p);
+            else super.completeExceptionally(e);
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable e) {
+            synchronized (this) {
+                if (saving) return false;
+                failing = true;
+            }
+            return super.completeExceptionally(e);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (saving) return false;
+                failing = true;
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    // Gets the current plan (the newest one in the plan history, or the plan file from before there was one)
+    public WorkoutPlan getCurrentPlan() {
+        if (this.plan == null) {
+            try {
+                this.plan = planStore.getLatest();
+            } catch (IOException e) {
+                System.err.println("Error loading plan history: " + e.getMessage());
+            }
+        }
+        if (this.plan == null && PlanManager.planExists()) {
+            this.plan = PlanManager.loadPlan();
+        }
+        return this.plan;
+    }
+
+    // Gets the last 'count' plans, newest first
+    public List<WorkoutPlan> getPlanHistory(int count) {
+        try {
+            return planStore.getHistory(count);
+        } catch (IOException e) {
+            System.err.println("Error loading plan history: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Gets a plan from the history by its id (null if there's no such plan)
+    public WorkoutPlan getPlan(long id) {
+        try {
+            return planStore.get(id);
+        } catch (IOException e) {
+            System.err.println("Error loading plan " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Adds a plan to the history; if that fails the plan is still used, just not kept
+    private WorkoutPlan storePlan(WorkoutPlan p) {
+        try {
+            return planStore.save(p);
+        } catch (IOException e) {
+            System.err.println("Error saving plan history: " + e.getMessage());
+            return p;
+        }
+    }
+
+    // Gets just the text/content of the current plan
+    public String getCurrentPlanContent() {
+        WorkoutPlan p = this.getCurrentPlan();
+        return p != null ? p.getContent() : null;
+    }
+
+    // Adds a workout to the list (saved shortly after in the background), and returns it
+    public Workout addWorkout(String name, Date date, int duration, String desc, String notes) {
+        Workout w = new Workout(name, date, duration, desc, notes);
+        workouts().add(w);
+        scheduleFlush();
+        return w;
+    }
+
+    // Removes a workout from the list (saved shortly after in the background)
+    public void removeWorkout(Workout w) {
+        workouts().remove(w);
+        scheduleFlush();
+    }
+
+    // Removes the workout with this id (returns false if there's none)
+    public boolean removeWorkout(long id) {
+        boolean removed = workouts().remove(id);
+        scheduleFlush();
+        return removed;
+    }
+
+    // Changes the workout with this id (returns false if there's none)
+    public boolean updateWorkout(long id, String name, Date date, int duration, String desc, String notes) {
+        boolean updated = workouts().update(id, name, date, duration, desc, notes);
+        scheduleFlush();
+        return updated;
+    }
+
+    // Writes every workout change still waiting to disk, and returns once it's there
+    public void flush() {
+        workouts().flush();
+    }
+
+    // How long changes may wait before being written (0 writes them as soon as the writer thread gets to them)
+    public void setWriteDelay(long millis) {
+        this.writeDelayMillis = Math.max(0, millis);
+    }
+
+    // Queues one background write for all changes made within the write delay
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) return; // a write is already on its way
+        workoutWriter.schedule(() -> {
+            flushScheduled.set(false); // changes from here on need another write
+            workouts().flush();
+        }, writeDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Gets the workout with this id (null if there's none)
+    public Workout getWorkout(long id) {
+        return workouts().get(id);
+    }
+
+    // Tells 'listener' about every workout added, removed or changed from now on, on 'executor'
+    // (Swing code should pass SwingUtilities::invokeLater). Changes that pile up are batched.
+    // Returns all workouts as of the moment it subscribed: start from those and apply the events.
+    public List<Workout> addWorkoutListener(WorkoutEventBus.Listener listener, Executor executor) {
+        return workouts().subscribe(listener, executor);
+    }
+
+    public void removeWorkoutListener(WorkoutEventBus.Listener listener) {
+        workouts().getEvents().unsubscribe(listener);
+    }
+
+    // Gets all workouts as a list
+    public List<Workout> getAllWorkouts() {
+        return workouts().getAll();
+    }
+
+    // Gets workouts between two dates
+    public List<Workout> getWorkoutsByDateRange(Date start, Date end) {
+        return workouts().getByDate(start, end);
+    }
+
+    // Gets the whole log as primitive columns (dates, durations, name codes) for totals and stats
+    public WorkoutColumns getWorkoutColumns() {
+        return workouts().getColumns();
+    }
+
+    // Gets the most recent 'count' workouts
+    public List<Workout> getRecentWorkouts(int count) {
+        return workouts().getRecent(count);
+    }
+
+    // A small fixed pool of daemon threads with a bounded waiting line
+    private static ThreadPoolExecutor createPlanExecutor() {
+        AtomicInteger n = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PARALLEL_PLANS, MAX_PARALLEL_PLANS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_PLANS), r -> {
+                    Thread t = new Thread(r, "plan-generator-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
\ No newline at end of file
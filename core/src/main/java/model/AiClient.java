@@ -0,0 +1,362 @@
+package model;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class AiClient {
+    // The API key for Gemini is stored here
+    private final String apiKey;
+    // The model we ask
+    private static final String MODEL = "gemini-1.5-flash";
+    // Where the Gemini models live (can be pointed elsewhere, e.g. a LocalGeminiServer, with -Dgemini.baseUrl=...)
+    public static final String DEFAULT_BASE_URL = System.getProperty("gemini.baseUrl", "https://generativelanguage.googleapis.com/v1/models/");
+    // Generation settings sent with every request (also part of the cache key)
+    private static final int MAX_OUTPUT_TOKENS = 800;
+    private static final double TEMPERATURE = 0.7;
+    // By default the last 64 plans are remembered for an hour
+    private static final int DEFAULT_CACHE_SIZE = 64;
+    private static final long DEFAULT_CACHE_TTL_MILLIS = 60 * 60 * 1000L;
+    // Shared by every AiClient in the process
+    private static final Metrics.Timer GENERATION_TIME = Metrics.timer("ai_generation_seconds", "Time to get a whole plan from Gemini, retries included");
+    private static final Metrics.Timer FIRST_TEXT_TIME = Metrics.timer("ai_stream_first_text_seconds", "Time until the first streamed text of a plan arrived");
+    private static final Metrics.Timer REQUEST_TIME = Metrics.timer("ai_request_seconds", "Time from sending one request to Gemini to its response status");
+    private static final Metrics.Counter REQUESTS = Metrics.counter("ai_requests_total", "Requests sent to Gemini, retries included");
+    private static final Metrics.Counter FAILURES = Metrics.counter("ai_request_failures_total", "Requests to Gemini that failed");
+    private static final Metrics.Counter RETRIES = Metrics.counter("ai_retries_total", "Requests to Gemini sent again after a failure");
+    private static final Metrics.Counter REJECTED = Metrics.counter("ai_breaker_rejections_total", "Requests the circuit breaker turned away");
+    private static final Metrics.Counter CACHE_HITS = Metrics.counter("ai_cache_hits_total", "Plans answered from the cache");
+    private static final Metrics.Counter STALE_PLANS = Metrics.counter("ai_stale_plans_total", "Expired cached plans handed out because Gemini was unavailable");
+    // Plans we already got from Gemini, so repeat requests don't go over the network again
+    private final PlanCache cache;
+    // Sends the HTTP requests (keeps connections open between calls)
+    private final AiTransport transport;
+    // The normal endpoint, and the streaming one that sends the answer as server-sent events
+    private final String apiUrl;
+    private final String streamUrl;
+    // Which failures get another try and how long to wait first
+    private final RetryPolicy retryPolicy;
+    // Turns requests away for a while once Gemini keeps failing
+    private final CircuitBreaker breaker;
+    // How many times a request was sent again after a failure
+    private final AtomicLong retries = new AtomicLong();
+    // Traces a sample of the generations (off unless -Dtrace.sampleRate is set)
+    private volatile Tracer tracer = Tracer.getDefault();
+
+    // When you make an AiClient, you give it your API key
+    public AiClient(String apiKey) {
+        this(apiKey, new PlanCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MILLIS));
+    }
+
+    // Same, but with your own cache (for example one that also keeps plans on disk)
+    public AiClient(String apiKey, PlanCache cache) {
+        this(apiKey, cache, new HttpClientTransport(), DEFAULT_BASE_URL);
+    }
+
+    // Same, but with your own transport and server (baseUrl ends with "/models/")
+    public AiClient(String apiKey, PlanCache cache, AiTransport transport, String baseUrl) {
+        this(apiKey, cache, transport, baseUrl, new RetryPolicy(), new CircuitBreaker());
+    }
+
+    // Same, but with your own retry and circuit breaker settings
+    public AiClient(String apiKey, PlanCache cache, AiTransport transport, String baseUrl,
+                    RetryPolicy retryPolicy, CircuitBreaker breaker) {
+        this.apiKey = apiKey;
+        this.cache = cache;
+        this.transport = transport;
+        this.apiUrl = baseUrl + MODEL + ":generateContent?key=" + apiKey;
+        this.streamUrl = baseUrl + MODEL + ":streamGenerateContent?alt=sse&key=" + apiKey;
+        this.retryPolicy = retryPolicy;
+        this.breaker = breaker;
+    }
+
+    // The cache used for plans
+    public PlanCache getCache() {
+        return cache;
+    }
+
+    // The circuit breaker (its state and how often it changed)
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    // How many requests were retried
+    public long getRetries() {
+        return retries.get();
+    }
+
+    // Where traces of generations go (Tracer.OFF for none)
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // Identifies a request: the inputs with case and extra spaces ignored, plus the generation settings.
+    // Two requests with the same key get the same plan. Fields are split by line breaks, which
+    // normalize() never leaves inside a field.
+    public static String requestKey(String goals, String level, String time, String fav, String special) {
+        return MODEL + "\n" + MAX_OUTPUT_TOKENS + "\n" + TEMPERATURE + "\n" + normalize(goals) + "\n" + normalize(level) + "\n"
+                + normalize(time) + "\n" + normalize(fav) + "\n" + normalize(special);
+    }
+
+    // This method asks Gemini to make a workout plan based on your info (or returns the cached one).
+    // If Gemini is unavailable (even after retrying) an expired cached plan is returned if there is one.
+    public String generateWorkoutPlan(String goals, String level, String time, String fav, String special) throws IOException {
+        String key = requestKey(goals, level, time, fav, special);
+        String cached = cache.get(key);
+        if (cached != null) {
+            CACHE_HITS.increment();
+            return cached;
+        }
+        long start = System.nanoTime();
+        Tracer.Trace trace = tracer.start("ai.generate");
+        trace.attr("stream", false);
+        Throwable error = null;
+        try {
+            return fetchWorkoutPlan(key, goals, level, time, fav, special, trace);
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            GENERATION_TIME.recordSince(start);
+            trace.end(error);
+        }
+    }
+
+    // The part of generateWorkoutPlan that goes to Gemini
+    private String fetchWorkoutPlan(String key, String goals, String level, String time, String fav, String special,
+                                    Tracer.Trace trace) throws IOException {
+        // Send the request (retrying if needed); we only get the response back once the API said 200
+        AiTransport.Response response;
+        try {
+            response = send(URI.create(apiUrl), buildRequestBody(goals, level, time, fav, special), trace);
+        } catch (IOException e) {
+            return staleOrThrow(key, e, trace);
+        }
+        String content;
+        try (response) {
+            // Pull just the workout plan text out of the response as it comes off the connection,
+            // so reading the body and parsing it finish together
+            content = GeminiJson.extractText(response.getBody());
+            trace.event("complete");
+        } catch (EOFException e) {
+            trace.attr("result", "empty response");
+            return "Error: Empty response from API";
+        } catch (GeminiJson.MalformedJsonException e) {
+            trace.attr("result", "malformed response");
+            return "Failed to parse response: " + e.getMessage();
+        }
+        if (content == null) {
+            trace.attr("result", "no plan text");
+            return "Failed to parse response: no plan text in the answer";
+        }
+        trace.attr("chars", content.length());
+        cache.put(key, content); // only real plans get cached, not error messages
+        return content;
+    }
+
+    // Like generateWorkoutPlan, but uses the streaming endpoint and hands each piece of text to
+    // 'onText' as soon as it arrives (on the calling thread). Returns the whole plan at the end.
+    // A cached plan is handed over in one piece.
+    public String generateWorkoutPlanStreaming(String goals, String level, String time, String fav, String special,
+                                               Consumer<String> onText) throws IOException {
+        String key = requestKey(goals, level, time, fav, special);
+        String cached = cache.get(key);
+        if (cached != null) {
+            CACHE_HITS.increment();
+            onText.accept(cached);
+            return cached;
+        }
+        long start = System.nanoTime();
+        Tracer.Trace trace = tracer.start("ai.generate");
+        trace.attr("stream", true);
+        boolean[] first = {true};
+        Throwable error = null;
+        try {
+            return streamWorkoutPlan(key, goals, level, time, fav, special, text -> {
+                if (first[0]) {
+                    first[0] = false;
+                    FIRST_TEXT_TIME.recordSince(start);
+                    trace.event("first_text");
+                }
+                onText.accept(text);
+            }, trace);
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            GENERATION_TIME.recordSince(start);
+            trace.end(error);
+        }
+    }
+
+    // The part of generateWorkoutPlanStreaming that goes to Gemini
+    private String streamWorkoutPlan(String key, String goals, String level, String time, String fav, String special,
+                                     Consumer<String> onText, Tracer.Trace trace) throws IOException {
+        AiTransport.Response response;
+        try {
+            response = send(URI.create(streamUrl), buildRequestBody(goals, level, time, fav, special), trace);
+        } catch (IOException e) {
+            String stale = staleOrThrow(key, e, trace);
+            onText.accept(stale);
+            return stale;
+        }
+        StringBuilder plan = new StringBuilder();
+        try (response) {
+            BufferedReader br = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+            // Each event is one or more "data:" lines followed by a blank line; the data is one JSON chunk
+            StringBuilder event = new StringBuilder();
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith("data:")) {
+                    event.append(line.substring(5).trim());
+                } else if (line.isEmpty() && event.length() > 0) {
+                    String text = GeminiJson.extractText(new StringReader(event.toString()));
+                    event.setLength(0);
+                    if (text != null && !text.isEmpty()) {
+                        plan.append(text);
+                        onText.accept(text);
+                    }
+                }
+            }
+            if (event.length() > 0) { // stream ended without the final blank line
+                String text = GeminiJson.extractText(new StringReader(event.toString()));
+                if (text != null && !text.isEmpty()) {
+                    plan.append(text);
+                    onText.accept(text);
+                }
+            }
+        }
+        trace.event("complete");
+        if (plan.length() == 0) {
+            trace.attr("result", "empty response");
+            return "Error: Empty response from API";
+        }
+        trace.attr("chars", plan.length());
+        cache.put(key, plan.toString());
+        return plan.toString();
+    }
+
+    // Builds the JSON body Gemini expects around the prompt
+    private String buildRequestBody(String goals, String level, String time, String fav, String special) {
+        // Build the prompt for the AI using all your info
+        String prompt =
+            "Create a brief, focused weekly workout plan for a person while taking into consideration the following:\n" +
+            "Goal: " + goals + "\n" +
+            "Experience level: " + level + "\n" +
+            "Time commitment: " + time + "\n" +
+            "Favorite exercises: " + (fav.isEmpty() ? "None specified" : fav) + "\n" +
+            "Special conditions: " + (special.isEmpty() ? "None" : special) + "\n" +
+            "FORMAT REQUIREMENTS:\n" +
+            "1. Include only 1 short paragraph introduction (2-3 sentences maximum)\n" +
+            "2. List days with minimal descriptions\n" +
+            "3. For each exercise include ONLY: name, sets, reps - simple explanation/reasoning. No more than 1 sentence\n" +
+            "4. If exercise is considered above the experience level indicated offer a small explanation\n" +
+            "5. No detailed warm-up or cool-down sections if no special conditions\n" +
+            "5. For the special condition, specify why an excercise was picked\n" +
+            "6. If special condition is entered then off a brief description of warm up, cooldowns \n" +
+            "7. Include theory or extended explanations if you think its needed.";
+        // Build the JSON body for the request
+        StringBuilder body = new StringBuilder(prompt.length() + 128);
+        body.append("{\"contents\": [{\"parts\":[{\"text\": ");
+        GeminiJson.appendQuoted(body, prompt);
+        body.append("}]}],\"generationConfig\": {\"maxOutputTokens\": ").append(MAX_OUTPUT_TOKENS)
+                .append(",\"temperature\": ").append(TEMPERATURE).append("}}");
+        return body.toString();
+    }
+
+    // Posts a request and returns the response once the API answered 200. Failures worth retrying
+    // (rate limits, server errors, dropped connections) are retried as the RetryPolicy says, and
+    // every outcome is reported to the circuit breaker, which may turn the request away up front.
+    // The trace gets a "send" event per attempt and a "first_byte" event when the status line is in
+    // (java.net.http doesn't say when the connection was made, so connecting is part of that gap).
+    private AiTransport.Response send(URI uri, String body, Tracer.Trace trace) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                breaker.acquire();
+            } catch (CircuitBreaker.OpenException e) {
+                REJECTED.increment();
+                trace.event("rejected", "breaker", breaker.getState());
+                throw e;
+            }
+            IOException failure;
+            REQUESTS.increment();
+            trace.event("send", "attempt", attempt);
+            long start = System.nanoTime();
+            try {
+                AiTransport.Response response = transport.post(uri, body);
+                trace.event("first_byte", "status", response.getStatusCode());
+                try {
+                    checkStatus(response);
+                } catch (IOException e) {
+                    response.close();
+                    throw e;
+                }
+                breaker.recordSuccess();
+                return response;
+            } catch (IOException e) {
+                failure = e;
+                FAILURES.increment();
+                trace.event("failed", "error", e.toString());
+            } catch (RuntimeException | Error e) {
+                // Still has to reach the breaker, or a half-open trial would stay out forever
+                FAILURES.increment();
+                trace.event("failed", "error", e.toString());
+                breaker.recordFailure();
+                throw e;
+            } finally {
+                REQUEST_TIME.recordSince(start);
+            }
+            if (failure instanceof InterruptedIOException) {
+                breaker.recordIgnored();
+                throw failure;
+            }
+            boolean retryable = retryPolicy.isRetryable(failure);
+            if (failure instanceof AiHttpException && !retryable) {
+                breaker.recordSuccess(); // the server is fine, it just didn't like this request
+                throw failure;
+            }
+            breaker.recordFailure();
+            long delay = retryable ? retryPolicy.delayMillis(attempt, failure) : -1;
+            if (delay < 0) throw failure;
+            retries.incrementAndGet();
+            RETRIES.increment();
+            trace.event("retry_wait", "delayMs", delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry the Gemini request");
+            }
+        }
+    }
+
+    // When Gemini is down, an expired plan from the cache is better than nothing; otherwise rethrows
+    private String staleOrThrow(String key, IOException e, Tracer.Trace trace) throws IOException {
+        boolean unavailable = e instanceof CircuitBreaker.OpenException
+                || (!(e instanceof InterruptedIOException) && !(e instanceof AiHttpException && !retryPolicy.isRetryable(e)));
+        String stale = unavailable ? cache.getStale(key) : null;
+        if (stale == null) throw e;
+        STALE_PLANS.increment();
+        trace.attr("result", "stale cached plan");
+        System.err.println("Gemini is unavailable (" + e.getMessage() + "), using an older cached plan");
+        return stale;
+    }
+
+    // Throws with the error body (and any Retry-After the server sent) if the API didn't answer 200
+    private static void checkStatus(AiTransport.Response response) throws IOException {
+        if (response.getStatusCode() == 200) return;
+        String error = response.readBody();
+        if (error.isEmpty()) error = "HTTP " + response.getStatusCode();
+        System.err.println("Gemini API error response: " + error);
+        throw new AiHttpException(response.getStatusCode(), RetryPolicy.parseRetryAfter(response.getHeader("Retry-After")),
+                "Gemini API error: " + error);
+    }
+
+    // Lower case, trimmed, with runs of whitespace squashed to one space
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
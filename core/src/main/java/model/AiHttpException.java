@@ -0,0 +1,21 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * The Gemini API answered with an error status (e.g. 429 when we're rate limited, 503 when it's overloaded).
+ */
+public class AiHttpException extends IOException {
+    private final int statusCode;
+    // How long the server asked us to wait before trying again (Retry-After), or -1 if it didn't say
+    private final long retryAfterMillis;
+
+    public AiHttpException(int statusCode, long retryAfterMillis, String message) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getStatusCode() { return statusCode; }
+    public long getRetryAfterMillis() { return retryAfterMillis; }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How AiClient sends its requests. The default is HttpClientTransport; tests and benchmarks
+ * can point it at a LocalGeminiServer instead of the real API.
+ */
+public interface AiTransport {
+    // Sends a JSON body as a POST and returns the response. The caller must close it.
+    Response post(URI uri, String jsonBody) throws IOException;
+
+    // Status, headers and the (not yet read) body of an HTTP response
+    final class Response implements Closeable {
+        private final int statusCode;
+        private final Map<String, List<String>> headers;
+        private final InputStream body;
+
+        public Response(int statusCode, Map<String, List<String>> headers, InputStream body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatusCode() { return statusCode; }
+        public InputStream getBody() { return body; }
+
+        // First value of a header (names are case-insensitive), or null
+        public String getHeader(String name) {
+            for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+                if (e.getKey() != null && e.getKey().equalsIgnoreCase(name) && !e.getValue().isEmpty()) return e.getValue().get(0);
+            }
+            return null;
+        }
+
+        // Reads the whole body as text (used for error messages)
+        public String readBody() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            body.transferTo(out);
+            return out.toString(StandardCharsets.UTF_8).trim();
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * Stops sending requests to the AI for a while once it keeps failing.
+ *
+ * CLOSED: requests go through. After 'failureThreshold' failures in a row the breaker OPENs and
+ * every request is turned away straight away, without waiting on a server that's down. After
+ * 'openMillis' it goes HALF_OPEN and lets one trial request through: if that works it CLOSEs
+ * again, if not it goes back to OPEN for another round.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    // State changes of every breaker in the process (the getters below are per breaker)
+    private static final Metrics.Counter OPENS = Metrics.counter("ai_breaker_opened_total", "Times the circuit breaker opened after repeated failures");
+    private static final Metrics.Counter HALF_OPENS = Metrics.counter("ai_breaker_half_opened_total", "Times the circuit breaker let a trial request through");
+    private static final Metrics.Counter CLOSES = Metrics.counter("ai_breaker_closed_total", "Times a trial request succeeded and the circuit breaker closed");
+    private static final Metrics.Counter REOPENS = Metrics.counter("ai_breaker_reopened_total", "Times a trial request failed and the circuit breaker opened again");
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    // When the breaker last opened
+    private long openedAt;
+    // Whether the half-open trial request is out right now
+    private boolean trialInFlight;
+    // How often each state change happened, and how many requests were turned away
+    private long opened, halfOpened, closed, reopened, rejected;
+
+    // Thrown instead of sending a request while the breaker is open
+    public static class OpenException extends IOException {
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+
+    // Opens after 5 failures in a row and waits 30s before trying again
+    public CircuitBreaker() {
+        this(5, 30_000);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("failureThreshold must be at least 1");
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    // Call before every request: returns normally if it may go ahead, throws if the breaker is open
+    public synchronized void acquire() throws OpenException {
+        if (state == State.OPEN) {
+            long waited = System.currentTimeMillis() - openedAt;
+            if (waited < openMillis) {
+                rejected++;
+                throw new OpenException("The AI service is unavailable, try again in " + ((openMillis - waited + 999) / 1000) + "s");
+            }
+            state = State.HALF_OPEN;
+            halfOpened++;
+            HALF_OPENS.increment();
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejected++;
+                throw new OpenException("The AI service is unavailable, checking whether it's back");
+            }
+            trialInFlight = true;
+        }
+    }
+
+    // The request got an answer from the server
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            closed++;
+            CLOSES.increment();
+        }
+    }
+
+    // The request failed because of the server or the network
+    public synchronized void recordFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            reopened++;
+            REOPENS.increment();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            opened++;
+            OPENS.increment();
+        }
+    }
+
+    // The request went out but ended without telling us anything about the server (e.g. it was cancelled)
+    public synchronized void recordIgnored() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() { return state; }
+    // CLOSED -> OPEN
+    public synchronized long getOpened() { return opened; }
+    // OPEN -> HALF_OPEN
+    public synchronized long getHalfOpened() { return halfOpened; }
+    // HALF_OPEN -> CLOSED
+    public synchronized long getClosed() { return closed; }
+    // HALF_OPEN -> OPEN
+    public synchronized long getReopened() { return reopened; }
+    // Requests turned away while open
+    public synchronized long getRejected() { return rejected; }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker[" + state + ", opened=" + opened + ", halfOpened=" + halfOpened + ", closed=" + closed
+                + ", reopened=" + reopened + ", rejected=" + rejected + "]";
+    }
+}
@@ -0,0 +1,322 @@
+package model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes the bits of JSON the Gemini API needs.
+ *
+ * extractText walks a generateContent response in one pass straight off the stream and only
+ * keeps the candidates[0].content.parts[].text strings; everything else is skipped without being
+ * stored. All string escapes, unicode escapes included, are decoded properly. quote() is the matching writer.
+ */
+public final class GeminiJson {
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos, len;
+
+    private GeminiJson(Reader in) {
+        this.in = in;
+    }
+
+    // Returns the plan text in a Gemini response (all parts of the first candidate joined together),
+    // or null if the response has no text. A JSON array of responses (what the streaming endpoint
+    // sends without alt=sse) is read as one response per element, with their texts joined.
+    // Throws MalformedJsonException if the JSON is broken, EOFException if it is cut off.
+    public static String extractText(InputStream response) throws IOException {
+        return extractText(new InputStreamReader(response, StandardCharsets.UTF_8));
+    }
+
+    public static String extractText(Reader response) throws IOException {
+        GeminiJson json = new GeminiJson(response);
+        StringBuilder text = new StringBuilder();
+        boolean found;
+        char c = json.nextToken();
+        if (c == '[') {
+            found = false;
+            if (!json.endOf(']')) {
+                do {
+                    json.expect('{');
+                    found |= json.readResponse(text);
+                } while (json.more(']'));
+            }
+        } else if (c == '{') {
+            found = json.readResponse(text);
+        } else {
+            throw json.error("Expected a JSON object");
+        }
+        return found ? text.toString() : null;
+    }
+
+    // Turns a Java string into a quoted JSON string
+    public static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s == null ? 2 : s.length() + 16);
+        appendQuoted(sb, s);
+        return sb.toString();
+    }
+
+    // Appends a Java string to 'sb' as a quoted JSON string (null is written as "")
+    public static void appendQuoted(StringBuilder sb, String s) {
+        sb.append('"');
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    case '\b': sb.append("\\b"); break;
+                    case '\f': sb.append("\\f"); break;
+                    default:
+                        // Any other control character as a unicode escape
+                        if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                        else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    // --- the walk: { "candidates": [ { "content": { "parts": [ { "text": "..." } ] } } ] } ---
+
+    // Reads one response object (the '{' is already consumed), returns true if it had text
+    private boolean readResponse(StringBuilder text) throws IOException {
+        boolean found = false;
+        if (endOf('}')) return false;
+        do {
+            String name = readName();
+            if (name.equals("candidates")) found |= readCandidates(text);
+            else skipValue();
+        } while (more('}'));
+        return found;
+    }
+
+    // Only the first candidate is used; Gemini sends one unless asked for more
+    private boolean readCandidates(StringBuilder text) throws IOException {
+        if (nextToken() != '[') { pushBack(); skipValue(); return false; }
+        boolean found = false;
+        if (endOf(']')) return false;
+        int index = 0;
+        do {
+            if (index++ == 0 && peekToken() == '{') {
+                expect('{');
+                found = readCandidate(text);
+            } else {
+                skipValue();
+            }
+        } while (more(']'));
+        return found;
+    }
+
+    private boolean readCandidate(StringBuilder text) throws IOException {
+        boolean found = false;
+        if (endOf('}')) return false;
+        do {
+            String name = readName();
+            if (name.equals("content") && peekToken() == '{') {
+                expect('{');
+                found |= readContent(text);
+            } else {
+                skipValue();
+            }
+        } while (more('}'));
+        return found;
+    }
+
+    private boolean readContent(StringBuilder text) throws IOException {
+        boolean found = false;
+        if (endOf('}')) return false;
+        do {
+            String name = readName();
+            if (name.equals("parts") && peekToken() == '[') {
+                expect('[');
+                if (!endOf(']')) {
+                    do {
+                        if (peekToken() == '{') {
+                            expect('{');
+                            found |= readPart(text);
+                        } else {
+                            skipValue();
+                        }
+                    } while (more(']'));
+                }
+            } else {
+                skipValue();
+            }
+        } while (more('}'));
+        return found;
+    }
+
+    private boolean readPart(StringBuilder text) throws IOException {
+        boolean found = false;
+        if (endOf('}')) return false;
+        do {
+            String name = readName();
+            if (name.equals("text") && peekToken() == '"') {
+                expect('"');
+                readString(text);
+                found = true;
+            } else {
+                skipValue();
+            }
+        } while (more('}'));
+        return found;
+    }
+
+    // --- tokenizer ---
+
+    // Reads "name": and returns the name
+    private String readName() throws IOException {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        readString(sb);
+        expect(':');
+        return sb.toString();
+    }
+
+    // After a value inside an object or array: true if a ',' follows, false if the closing bracket does
+    private boolean more(char close) throws IOException {
+        char c = nextToken();
+        if (c == ',') return true;
+        if (c == close) return false;
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    // Right after an opening bracket: consumes the closing bracket if the object/array is empty
+    private boolean endOf(char close) throws IOException {
+        if (peekToken() == close) { nextToken(); return true; }
+        return false;
+    }
+
+    // Skips any JSON value without keeping it
+    private void skipValue() throws IOException {
+        char c = nextToken();
+        switch (c) {
+            case '{':
+                if (endOf('}')) return;
+                do { readName(); skipValue(); } while (more('}'));
+                return;
+            case '[':
+                if (endOf(']')) return;
+                do { skipValue(); } while (more(']'));
+                return;
+            case '"':
+                skipString();
+                return;
+            default:
+                // number, true, false or null: everything up to the next separator
+                if (!(c == '-' || (c >= '0' && c <= '9') || c == 't' || c == 'f' || c == 'n')) throw error("Unexpected '" + c + "'");
+                while (true) {
+                    int n = peekChar();
+                    if (n == -1 || n == ',' || n == '}' || n == ']' || Character.isWhitespace(n)) return;
+                    pos++;
+                }
+        }
+    }
+
+    // Reads the rest of a string (the opening quote is consumed) into 'sb', decoding escapes
+    private void readString(StringBuilder sb) throws IOException {
+        while (true) {
+            int c = readChar();
+            if (c == '"') return;
+            if (c == '\\') sb.append(readEscape());
+            else if (c == -1) throw error("Unterminated string");
+            else sb.append((char) c);
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int c = readChar();
+            if (c == '"') return;
+            if (c == '\\') readEscape();
+            else if (c == -1) throw error("Unterminated string");
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = readChar();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                // Characters outside the BMP come as two unicode escapes in a row (a surrogate pair), one char each
+                int v = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = Character.digit(readChar(), 16);
+                    if (h < 0) throw error("Bad \\u escape");
+                    v = (v << 4) | h;
+                }
+                return (char) v;
+            default:
+                throw error("Bad escape '\\" + (c == -1 ? "" : String.valueOf((char) c)) + "'");
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        char c = nextToken();
+        if (c != expected) throw error("Expected '" + expected + "' but found '" + c + "'");
+    }
+
+    // Next character that isn't whitespace (consumed)
+    private char nextToken() throws IOException {
+        int c;
+        do {
+            c = readChar();
+        } while (c != -1 && Character.isWhitespace(c));
+        if (c == -1) throw new EOFException("Response ended in the middle of the JSON");
+        return (char) c;
+    }
+
+    // Next character that isn't whitespace (not consumed)
+    private char peekToken() throws IOException {
+        char c = nextToken();
+        pushBack();
+        return c;
+    }
+
+    // Un-reads the last character (always still in the buffer)
+    private void pushBack() {
+        pos--;
+    }
+
+    private int readChar() throws IOException {
+        int c = peekChar();
+        if (c != -1) pos++;
+        return c;
+    }
+
+    private int peekChar() throws IOException {
+        if (pos == len) {
+            // Keep the last character so pushBack() still works after a refill
+            if (len > 0) {
+                buf[0] = buf[len - 1];
+                pos = 1;
+                len = 1;
+            }
+            int n = in.read(buf, len, buf.length - len);
+            if (n <= 0) return -1;
+            len += n;
+        }
+        return buf[pos];
+    }
+
+    private IOException error(String message) {
+        return new MalformedJsonException("Malformed JSON from Gemini API: " + message);
+    }
+
+    // Thrown when the response isn't valid JSON (as opposed to the connection failing)
+    public static class MalformedJsonException extends IOException {
+        public MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+}
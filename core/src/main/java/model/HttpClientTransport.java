@@ -0,0 +1,162 @@
+package model;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AiTransport on top of java.net.http.HttpClient. One client is shared by every request,
+ * so connections (and their TLS sessions) are kept alive and reused, over HTTP/2 when the
+ * server supports it.
+ *
+ * The client itself (which sets up TLS and takes a good part of a second) is only built when
+ * the first request is sent, so making a transport at startup costs nothing.
+ *
+ * Three timeouts apply: connecting, waiting for the response headers, and the whole call
+ * including reading the body. When the whole-call deadline passes, a watchdog closes the body,
+ * which also wakes up a read that is stuck waiting on a stalled server. Giving up on the
+ * headers (timeout or interrupt) cancels the request, so cancelling a generation
+ * (WorkoutController) really stops it.
+ */
+public class HttpClientTransport implements AiTransport {
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+    public static final Duration DEFAULT_OVERALL_TIMEOUT = Duration.ofSeconds(120);
+
+    // Closes response bodies that are still open when their deadline passes (shared, one daemon thread)
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "http-deadline-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Duration connectTimeout;
+    private volatile HttpClient client;
+    private final Duration readTimeout;
+    private final Duration overallTimeout;
+
+    public HttpClientTransport() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_OVERALL_TIMEOUT);
+    }
+
+    // readTimeout: how long to wait for the response headers; overallTimeout: the whole call, body included
+    public HttpClientTransport(Duration connectTimeout, Duration readTimeout, Duration overallTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.overallTimeout = overallTimeout;
+    }
+
+    // The shared client, built on first use
+    private HttpClient client() {
+        HttpClient c = client;
+        if (c != null) return c;
+        synchronized (this) {
+            if (client == null) {
+                client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(connectTimeout)
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build();
+            }
+            return client;
+        }
+    }
+
+    @Override
+    public Response post(URI uri, String jsonBody) throws IOException {
+        long deadline = System.nanoTime() + overallTimeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build();
+        CompletableFuture<HttpResponse<InputStream>> pending = client().sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            HttpResponse<InputStream> response = pending.get(overallTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            return new Response(response.statusCode(), response.headers().map(), new DeadlineInputStream(response.body(), deadline));
+        } catch (TimeoutException e) {
+            pending.cancel(true);
+            throw new HttpTimeoutException("No response from " + uri.getHost() + " within " + overallTimeout.toSeconds() + "s");
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request to " + uri.getHost() + " was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    // Fails reads once the overall deadline has passed, so a slow trickle of bytes can't run forever.
+    // The watchdog closes the stream at the deadline, which ends a read that is already blocked.
+    private static final class DeadlineInputStream extends FilterInputStream {
+        private final long deadline;
+        private final ScheduledFuture<?> watchdog;
+        private volatile boolean expired;
+
+        DeadlineInputStream(InputStream in, long deadline) {
+            super(in);
+            this.deadline = deadline;
+            this.watchdog = WATCHDOG.schedule(this::expire, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        private void expire() {
+            expired = true;
+            try {
+                in.close();
+            } catch (IOException e) {
+                // closing is all we wanted
+            }
+        }
+
+        private void check() throws IOException {
+            if (expired || System.nanoTime() - deadline > 0) {
+                close();
+                throw new HttpTimeoutException("Response took longer than the overall timeout");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            check();
+            try {
+                return super.read();
+            } catch (IOException e) {
+                check(); // closed by the watchdog
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            check();
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                check();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            watchdog.cancel(false);
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package model;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stand-in for the Gemini API that runs inside the JVM on localhost, for measuring and testing
+ * AiClient without a network or an API key. It answers both generateContent and
+ * streamGenerateContent (as server-sent events) with a fixed plan after a configurable delay,
+ * and can be told to fail the next few requests.
+ *
+ * Point an AiClient at it with new AiClient(key, cache, transport, server.getBaseUrl()), or run
+ * the main method and start the app with -Dgemini.baseUrl=http://127.0.0.1:8089/v1/models/
+ */
+public class LocalGeminiServer implements Closeable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String planText;
+    private final long latencyMillis;
+    // The streaming answer is sent in this many pieces, 'chunkDelayMillis' apart
+    private static final int STREAM_CHUNKS = 8;
+    private volatile long chunkDelayMillis = 20;
+    private final AtomicInteger requests = new AtomicInteger();
+    // Requests still to be failed, with which status and Retry-After value
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus;
+    private volatile int retryAfterSeconds;
+
+    // Starts on a free port
+    public LocalGeminiServer(String planText, long latencyMillis) throws IOException {
+        this(0, planText, latencyMillis);
+    }
+
+    public LocalGeminiServer(int port, String planText, long latencyMillis) throws IOException {
+        this.planText = planText;
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "local-gemini");
+            t.setDaemon(true);
+            return t;
+        });
+        server.createContext("/v1/models/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    // What to use as the AiClient base URL
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/models/";
+    }
+
+    // How many requests have come in so far
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    // Pause between streamed pieces
+    public void setChunkDelayMillis(long millis) {
+        this.chunkDelayMillis = millis;
+    }
+
+    // Makes the next 'count' requests fail with 'status' (and a Retry-After header if retryAfterSeconds > 0)
+    public void failNext(int count, int status, int retryAfterSeconds) {
+        this.failureStatus = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.failuresLeft.set(count);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream()); // read the whole request first
+        }
+        requests.incrementAndGet();
+        try {
+            sleep(latencyMillis);
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                if (retryAfterSeconds > 0) exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                send(exchange, failureStatus, "{\"error\": {\"code\": " + failureStatus + ", \"message\": \"Simulated failure\"}}");
+            } else if (exchange.getRequestURI().getPath().endsWith(":streamGenerateContent")) {
+                stream(exchange);
+            } else {
+                send(exchange, 200, response(planText));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Sends the plan as server-sent events, one piece per event
+    private void stream(HttpExchange exchange) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int step = Math.max(1, (planText.length() + STREAM_CHUNKS - 1) / STREAM_CHUNKS);
+        for (int i = 0; i < planText.length(); i += step) {
+            String piece = planText.substring(i, Math.min(planText.length(), i + step));
+            out.write(("data: " + response(piece) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sleep(chunkDelayMillis);
+        }
+        out.close();
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // A generateContent response shaped like Gemini's
+    private static String response(String text) {
+        return "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": " + GeminiJson.quote(text) + "}], \"role\": \"model\"},"
+                + " \"finishReason\": \"STOP\", \"index\": 0}]}";
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) TimeUnit.MILLISECONDS.sleep(millis);
+    }
+
+    // Runs the stand-in on its own: java model.LocalGeminiServer [port] [latency millis]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        LocalGeminiServer server = new LocalGeminiServer(port,
+                "Sample plan from the local stand-in server.\n\nDay 1: Squats 3x10, Push-ups 3x12\nDay 2: Rest\nDay 3: Lunges 3x10, Rows 3x12\n",
+                latency);
+        System.out.println("Local Gemini stand-in running at " + server.getBaseUrl());
+    }
+}
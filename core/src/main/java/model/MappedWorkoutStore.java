@@ -0,0 +1,185 @@
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only view of a binary workout file (see WorkoutBinaryFormat) that memory-maps it
+ * instead of loading it.
+ *
+ * Opening the store only walks the record headers and keeps the date, duration, id and the
+ * offset of each record in primitive arrays (24 bytes per workout). Name, description and
+ * notes stay in the mapped file and are decoded when someone asks for them. Opening is still
+ * linear in the number of records, it just skips the string decoding and the string garbage.
+ * Reads never move the buffer's position, so a store can be shared between threads.
+ *
+ * The store only sees the snapshot file, not the journal next to it. WorkoutBinaryFormat loads
+ * .bin logs through it, and WorkoutManager replays the journal on top as for any other snapshot.
+ */
+public class MappedWorkoutStore implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buf;
+    private final long journalSeq;
+    // Per record: date millis, duration, id and the offset of the name's length field
+    private final long[] dates;
+    private final int[] durations;
+    private final long[] ids;
+    private final int[] nameOffsets;
+    // Where the records end and the CRC32 trailer starts
+    private final int dataEnd;
+
+    private MappedWorkoutStore(FileChannel channel, MappedByteBuffer buf) throws IOException {
+        this.channel = channel;
+        this.buf = buf;
+        buf.order(ByteOrder.BIG_ENDIAN);
+        if (buf.limit() < WorkoutBinaryFormat.HEADER_SIZE + 4 || buf.getInt(0) != WorkoutBinaryFormat.MAGIC) {
+            throw new IOException("Not a binary workout file");
+        }
+        short version = buf.getShort(4);
+        if (version != 1 && version != WorkoutBinaryFormat.VERSION) throw new IOException("Unsupported workout file version " + version);
+        int fixed = WorkoutBinaryFormat.fixedSize(version);
+        journalSeq = buf.getLong(8);
+        int count = buf.getInt(16);
+        if (count < 0) throw new IOException("Corrupt record count " + count);
+        dates = new long[count];
+        durations = new int[count];
+        ids = new long[count];
+        nameOffsets = new int[count];
+        // Walk the records using their length prefix, reading only the fixed-width fields
+        int pos = WorkoutBinaryFormat.HEADER_SIZE;
+        int end = buf.limit() - 4;
+        for (int i = 0; i < count; i++) {
+            if (pos + 4 + fixed > end) throw new IOException("Truncated workout file");
+            int len = buf.getInt(pos);
+            if (len < fixed + 12 || len > end - pos - 4) throw new IOException("Corrupt record " + i);
+            dates[i] = buf.getLong(pos + 4);
+            durations[i] = buf.getInt(pos + 12);
+            if (version != 1) ids[i] = buf.getLong(pos + 16);
+            nameOffsets[i] = pos + 4 + fixed;
+            pos += 4 + len;
+        }
+        dataEnd = pos;
+    }
+
+    // Maps a binary workout file (files over 2 GB are not supported)
+    public static MappedWorkoutStore open(File file) throws IOException {
+        FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException(file + " is too large to map");
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new MappedWorkoutStore(ch, buf);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    // Number of workouts in the file
+    public int size() { return dates.length; }
+    // The journal sequence this snapshot covers
+    public long getJournalSeq() { return journalSeq; }
+    public long getDateMillis(int i) { return dates[i]; }
+    public Date getDate(int i) { return new Date(dates[i]); }
+    public int getDuration(int i) { return durations[i]; }
+    public long getId(int i) { return ids[i]; }
+
+    // The three strings sit back to back after the fixed fields: name, description, notes
+    public String getName(int i) { return decode(nameOffsets[i]); }
+    public String getDescription(int i) { return decode(skip(nameOffsets[i], 1)); }
+    public String getNotes(int i) { return decode(skip(nameOffsets[i], 2)); }
+
+    // A Workout for record i whose name, description and notes are decoded on first use
+    public Workout get(int i) {
+        return new LazyWorkout(this, i);
+    }
+
+    // Re-checks the CRC32 trailer (reads the whole file, so this is not done on open)
+    public boolean verifyChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(0).limit(dataEnd));
+        return buf.limit() == dataEnd + 4 && buf.getInt(dataEnd) == (int) crc.getValue();
+    }
+
+    // The mapping itself is released by the garbage collector once the store is unreachable
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Offset of the n-th string after the one at 'offset'
+    private int skip(int offset, int n) {
+        for (int k = 0; k < n; k++) offset += 4 + buf.getInt(offset);
+        return offset;
+    }
+
+    private String decode(int offset) {
+        int len = buf.getInt(offset);
+        byte[] b = new byte[len];
+        buf.get(offset + 4, b, 0, len);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // Workout backed by a record in the mapped file; the strings are only decoded when read.
+    // Each string lives in one volatile field that is null until it is decoded or set, so a thread
+    // that sees it non-null sees the whole string. Decoding and setting lock the workout, so a decode
+    // can't overwrite a value set meanwhile. Files store a missing string as "", so setting null
+    // stores "" too, which also keeps null free to mean "not decoded yet".
+    private static final class LazyWorkout extends Workout {
+        private final MappedWorkoutStore store;
+        private final int index;
+        private volatile String name, desc, notes;
+
+        LazyWorkout(MappedWorkoutStore store, int index) {
+            super(store.getId(index), null, store.getDate(index), store.getDuration(index), null, null);
+            this.store = store;
+            this.index = index;
+        }
+
+        @Override
+        public String getName() {
+            String n = name;
+            if (n != null) return n;
+            synchronized (this) {
+                if (name == null) name = store.getName(index);
+                return name;
+            }
+        }
+        @Override
+        public synchronized void setName(String name) { this.name = name == null ? "" : name; }
+        @Override
+        public String getDescription() {
+            String d = desc;
+            if (d != null) return d;
+            synchronized (this) {
+                if (desc == null) desc = store.getDescription(index);
+                return desc;
+            }
+        }
+        @Override
+        public synchronized void setDescription(String desc) { this.desc = desc == null ? "" : desc; }
+        @Override
+        public String getNotes() {
+            String n = notes;
+            if (n != null) return n;
+            synchronized (this) {
+                if (notes == null) notes = store.getNotes(index);
+                return notes;
+            }
+        }
+        @Override
+        public synchronized void setNotes(String notes) { this.notes = notes == null ? "" : notes; }
+
+        @Override
+        public String toString() {
+            return getDate() + "|" + getName() + "|" + getDuration() + "|" + getDescription() + "|" + getNotes();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package model;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The app's counters and timers, kept in memory for the life of the process.
+ *
+ * Classes get theirs once, into static fields (Metrics.timer("workout_load_seconds", "...")),
+ * and update them on the hot path, which costs a few atomic adds and never blocks or allocates.
+ * Timers keep a histogram with four buckets per power of two, so percentiles are at most about
+ * 20% off, in a fixed 2 KB per timer. dump() gives a readable summary of everything, and
+ * toPrometheus() the Prometheus text format (see MetricsServer for serving it over HTTP).
+ */
+public final class Metrics {
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+    // The percentiles that dump() and toPrometheus() report
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private Metrics() {}
+
+    // Returns the counter with this name, creating it the first time
+    public static Counter counter(String name, String help) {
+        if (TIMERS.containsKey(name)) throw new IllegalArgumentException(name + " is already a timer");
+        return COUNTERS.computeIfAbsent(name, n -> new Counter(n, help));
+    }
+
+    // Returns the timer with this name, creating it the first time
+    public static Timer timer(String name, String help) {
+        if (COUNTERS.containsKey(name)) throw new IllegalArgumentException(name + " is already a counter");
+        return TIMERS.computeIfAbsent(name, n -> new Timer(n, help));
+    }
+
+    // A number that only goes up
+    public static final class Counter {
+        private final String name;
+        private final String help;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public void increment() { value.increment(); }
+        public void add(long n) { value.add(n); }
+        public long get() { return value.sum(); }
+        public String getName() { return name; }
+    }
+
+    // How long something took, every time it happened
+    public static final class Timer {
+        // Durations below this many nanos get a bucket each, above it four buckets per power of two
+        private static final int SUB_BUCKETS = 4;
+        private final String name;
+        private final String help;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Timer(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        // Records the time since 'startNanos' (a System.nanoTime() value)
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() { return count.sum(); }
+        public long getTotalNanos() { return totalNanos.sum(); }
+        public long getMaxNanos() { return maxNanos.get(); }
+        public String getName() { return name; }
+
+        public double getMeanNanos() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getTotalNanos() / n;
+        }
+
+        // The duration that a fraction 'q' (0..1) of the recordings were at or under (0 if none).
+        // Answers with the top of the histogram bucket, but never above the real maximum.
+        public long getPercentileNanos(double q) {
+            long total = 0;
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBound(i), getMaxNanos());
+            }
+            return getMaxNanos();
+        }
+
+        static int bucketOf(long nanos) {
+            if (nanos < SUB_BUCKETS) return (int) nanos;
+            int exp = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exp - 2)) & (SUB_BUCKETS - 1);
+            return exp * SUB_BUCKETS + sub;
+        }
+
+        // Largest duration that lands in bucket 'i'
+        static long upperBound(int i) {
+            if (i < SUB_BUCKETS) return i;
+            int exp = i / SUB_BUCKETS;
+            long lower = (long) (SUB_BUCKETS + i % SUB_BUCKETS) << (exp - 2);
+            return lower + (1L << (exp - 2)) - 1;
+        }
+    }
+
+    // Everything, one metric per line, e.g.
+    //   ai_requests_total                       12
+    //   workout_load_seconds                    count=3 mean=12.1ms p50=11.5ms p90=14.0ms p99=14.0ms max=13.9ms
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Counter c : COUNTERS.values()) {
+            out.append(String.format(Locale.ROOT, "%-40s %d%n", c.name, c.get()));
+        }
+        for (Timer t : TIMERS.values()) {
+            out.append(String.format(Locale.ROOT, "%-40s count=%d mean=%s", t.name, t.getCount(), millis(t.getMeanNanos())));
+            for (double q : QUANTILES) {
+                out.append(String.format(Locale.ROOT, " p%d=%s", Math.round(q * 100), millis(t.getPercentileNanos(q))));
+            }
+            out.append(" max=").append(millis(t.getMaxNanos())).append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    // Everything in the Prometheus text exposition format: counters as counters, timers as
+    // summaries (in seconds, with quantiles) plus a _max gauge
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        for (Counter c : COUNTERS.values()) {
+            header(out, c.name, c.help, "counter");
+            out.append(c.name).append(' ').append(c.get()).append('\n');
+        }
+        for (Timer t : TIMERS.values()) {
+            header(out, t.name, t.help, "summary");
+            for (double q : QUANTILES) {
+                out.append(t.name).append("{quantile=\"").append(q).append("\"} ")
+                        .append(seconds(t.getPercentileNanos(q))).append('\n');
+            }
+            out.append(t.name).append("_sum ").append(seconds(t.getTotalNanos())).append('\n');
+            out.append(t.name).append("_count ").append(t.getCount()).append('\n');
+            header(out, t.name + "_max", "Longest " + lowerFirst(t.help), "gauge");
+            out.append(t.name).append("_max ").append(seconds(t.getMaxNanos())).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String lowerFirst(String s) {
+        return s.isEmpty() ? s : Character.toLowerCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static String seconds(double nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String millis(double nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the Metrics on localhost:
+ *   /metrics   the Prometheus text format, for scraping
+ *   /          the readable dump
+ * Only listens on the loopback address, so nothing outside this machine can read it.
+ */
+public class MetricsServer implements Closeable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Starts on 'port' (0 picks a free one)
+    public MetricsServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-server");
+            t.setDaemon(true);
+            return t;
+        });
+        server.createContext("/metrics", exchange -> send(exchange, "text/plain; version=0.0.4", Metrics.toPrometheus()));
+        server.createContext("/", exchange -> send(exchange, "text/plain", Metrics.dump()));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void send(HttpExchange exchange, String contentType, String text) throws IOException {
+        try {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
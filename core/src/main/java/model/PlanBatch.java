@@ -0,0 +1,133 @@
+package model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates workout plans for a whole list of clients at once.
+ *
+ * Up to 'parallelism' requests run at the same time and no more than 'requestsPerSecond'
+ * are started, so a big batch finishes in about the time of its slowest requests without
+ * tripping the API's rate limits. Clients with identical answers share one request.
+ * Each plan is saved to its own file as soon as it arrives and handed to the listener.
+ */
+public class PlanBatch {
+    private final AiClient client;
+    private final int parallelism;
+    private final double requestsPerSecond;
+    // How long one plan may take before it's given up on
+    private final long timeoutMillis;
+
+    // Gets told about each plan (or failure) as it finishes, in the order they finish.
+    // Called on a background thread. Exceptions thrown here are logged and don't stop the batch.
+    public interface Listener {
+        void onPlan(int index, PlanRequest request, WorkoutPlan plan);
+        void onError(int index, PlanRequest request, Throwable error);
+    }
+
+    public PlanBatch(AiClient client, int parallelism, double requestsPerSecond, long timeout, TimeUnit unit) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1");
+        this.client = client;
+        this.parallelism = parallelism;
+        this.requestsPerSecond = requestsPerSecond;
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    // Starts the batch and returns right away. Plan i is saved to outputDir/plan-<i+1>.txt.
+    // The future completes once every request is done, with the plans in request order
+    // (null where a request failed). Cancelling it stops the batch: nothing new is started
+    // and the running requests are interrupted.
+    public CompletableFuture<List<WorkoutPlan>> run(List<PlanRequest> requests, File outputDir, Listener listener) {
+        List<PlanRequest> todo = new ArrayList<>(requests);
+        WorkoutPlan[] plans = new WorkoutPlan[todo.size()];
+        CompletableFuture<List<WorkoutPlan>> done = new CompletableFuture<>();
+        if (todo.isEmpty()) {
+            done.complete(new ArrayList<>());
+            return done;
+        }
+        outputDir.mkdirs();
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, todo.size()), r -> {
+            Thread t = new Thread(r, "plan-batch-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore slots = new Semaphore(parallelism);
+        RateLimiter limiter = new RateLimiter(requestsPerSecond);
+        SingleFlight<String, Void, String> flights = new SingleFlight<>();
+        AtomicInteger remaining = new AtomicInteger(todo.size());
+
+        // Hands requests to the workers one by one, waiting for a free slot and the rate limit
+        Thread dispatcher = new Thread(() -> {
+            try {
+                for (int i = 0; i < todo.size() && !done.isDone(); i++) {
+                    slots.acquire();
+                    limiter.acquire();
+                    int index = i;
+                    PlanRequest r = todo.get(i);
+                    flights.run(r.key(), null, progress -> submit(workers, r)).whenComplete((content, e) -> {
+                        slots.release();
+                        if (done.isCancelled()) return;
+                        try {
+                            if (e == null) {
+                                WorkoutPlan p = new WorkoutPlan(content, r.getGoals(), r.getLevel(), r.getTime(), r.getFav(), r.getSpecial());
+                                PlanManager.savePlan(p, new File(outputDir, "plan-" + (index + 1) + ".txt"));
+                                synchronized (plans) {
+                                    plans[index] = p;
+                                }
+                                if (listener != null) listener.onPlan(index, r, p);
+                            } else if (listener != null) {
+                                listener.onError(index, r, e);
+                            }
+                        } catch (RuntimeException ex) {
+                            // A failing listener mustn't stop the batch from finishing
+                            System.err.println("Error handling plan " + (index + 1) + " of the batch: " + ex);
+                        } finally {
+                            if (remaining.decrementAndGet() == 0) {
+                                synchronized (plans) {
+                                    done.complete(new ArrayList<>(Arrays.asList(plans)));
+                                }
+                            }
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                // batch was cancelled
+            }
+        }, "plan-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        done.whenComplete((list, e) -> {
+            dispatcher.interrupt();
+            workers.shutdownNow();
+        });
+        dispatcher.start();
+        return done;
+    }
+
+    // Runs one AI request on the batch's workers; gives up (and interrupts it) after the timeout
+    private CompletableFuture<String> submit(ExecutorService workers, PlanRequest r) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Future<?> task = workers.submit(() -> {
+            try {
+                result.complete(client.generateWorkoutPlan(r.getGoals(), r.getLevel(), r.getTime(), r.getFav(), r.getSpecial()));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((s, e) -> {
+            if (e != null) task.cancel(true);
+        });
+        return result;
+    }
+}
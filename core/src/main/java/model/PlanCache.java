@@ -0,0 +1,183 @@
+package model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers generated plan texts so asking for the same plan again doesn't go back to the AI.
+ *
+ * Entries live in a bounded LRU map and expire after a time-to-live. If a directory is given,
+ * every entry is also written there as a file, so answers survive a restart; a memory miss
+ * then falls back to the disk copy. Keys come from AiClient.requestKey, which normalizes the
+ * inputs and includes the generation settings. Expired entries are not served by get, but are
+ * kept (until replaced or pushed out) so getStale can fall back on them when the AI is down.
+ */
+public class PlanCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    // Optional on-disk copy of the cache (null means memory only)
+    private final File dir;
+    // Access-ordered, so the first entry is always the least recently used one
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits, diskHits, misses, evictions;
+
+    // Memory-only cache
+    public PlanCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, null);
+    }
+
+    // Cache that also keeps a copy of every entry in 'dir'
+    public PlanCache(int maxEntries, long ttlMillis, File dir) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.dir = dir;
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            System.err.println("Could not create plan cache directory " + dir);
+        }
+    }
+
+    // Returns the cached plan for this key, or null if there isn't a fresh one.
+    // The lock only guards the map; the disk is read without it, so a slow disk doesn't hold up
+    // callers whose plans are in memory.
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null && now - e.created < ttlMillis) {
+                hits++;
+                return e.content;
+            }
+        }
+        // An expired entry stays put (as a fallback for getStale) until it's replaced or pushed out
+        Entry disk = readFromDisk(key);
+        synchronized (this) {
+            // A put may have come in while we were reading; the newer entry wins
+            Entry e = entries.get(key);
+            if (e != null && now - e.created < ttlMillis && (disk == null || e.created >= disk.created)) {
+                hits++;
+                return e.content;
+            }
+            if (disk != null && now - disk.created < ttlMillis) {
+                diskHits++;
+                hits++;
+                store(key, disk);
+                return disk.content;
+            }
+            misses++;
+            return null;
+        }
+    }
+
+    // Returns the plan for this key even if it has expired, or null if there's none at all.
+    // Used when the AI is unavailable: an old plan beats no plan.
+    public String getStale(String key) {
+        Entry e;
+        synchronized (this) {
+            e = entries.get(key);
+        }
+        if (e == null) e = readFromDisk(key);
+        return e != null ? e.content : null;
+    }
+
+    // Adds (or replaces) a plan in the cache. The disk copy is written after the lock is let go.
+    public void put(String key, String content) {
+        Entry e = new Entry(content, System.currentTimeMillis());
+        synchronized (this) {
+            store(key, e);
+        }
+        writeToDisk(key, e);
+    }
+
+    // Drops everything from memory (the disk copy is kept)
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getDiskHits() { return diskHits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int size() { return entries.size(); }
+
+    @Override
+    public synchronized String toString() {
+        return "PlanCache[size=" + entries.size() + ", hits=" + hits + " (disk " + diskHits + "), misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    // Puts an entry in memory, pushing out the least recently used ones if we're full (lock held)
+    private void store(String key, Entry e) {
+        entries.put(key, e);
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); entries.size() > maxEntries; ) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    // Disk entries are one file per key: the creation time on the first line, then the plan
+    private Entry readFromDisk(String key) {
+        if (dir == null) return null;
+        File f = fileFor(key);
+        if (!f.exists()) return null;
+        try {
+            String data = new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+            int nl = data.indexOf('\n');
+            long created = Long.parseLong(data.substring(0, nl));
+            return new Entry(data.substring(nl + 1), created);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading plan cache file " + f + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Writes to a file of its own and moves it into place, so a reader (or a second writer for
+    // the same key) never sees a half-written entry; the last move wins
+    private void writeToDisk(String key, Entry e) {
+        if (dir == null) return;
+        File f = fileFor(key);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(dir.toPath(), f.getName(), ".tmp");
+            Files.write(tmp, (e.created + "\n" + e.content).getBytes(StandardCharsets.UTF_8));
+            WorkoutManager.replace(tmp, f.toPath());
+        } catch (IOException ex) {
+            System.err.println("Error writing plan cache file " + f + ": " + ex.getMessage());
+            try {
+                if (tmp != null) Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // nothing more to do; the next write for this key tries again
+            }
+        }
+    }
+
+    // Keys can be long and contain anything, so files are named after their SHA-256
+    private File fileFor(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) sb.append(String.format("%02x", b));
+            return new File(dir, sb + ".plan");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM ships SHA-256
+        }
+    }
+
+    private static final class Entry {
+        final String content;
+        final long created;
+
+        Entry(String content, long created) {
+            this.content = content;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package model;
+
+import java.io.*;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+public class PlanManager {
+    // This is the file where the workout plan is saved and loaded from
+    private static final String FILE = "workout_plan.txt";
+    // Header lines written above the plan
+    private static final String GENERATED = "# Generated: ";
+    private static final String GOALS = "# Goals: ";
+    private static final String LEVEL = "# Level: ";
+    private static final String TIME = "# Time: ";
+    private static final String FAVORITE = "# Favorite: ";
+    private static final String SPECIAL = "# Special: ";
+    private static final Metrics.Timer SAVE_TIME = Metrics.timer("plan_save_seconds", "Time to write a plan file");
+    private static final Metrics.Timer LOAD_TIME = Metrics.timer("plan_load_seconds", "Time to read and parse a plan file");
+    private static final Metrics.Counter LOAD_CACHE_HITS = Metrics.counter("plan_load_cache_hits_total", "Plan loads answered without reading the file");
+    private static final Metrics.Counter ERRORS = Metrics.counter("plan_file_errors_total", "Plan files that couldn't be written or read");
+    // The last plan saved or loaded, and the state of its file at that point
+    private static File cachedFile;
+    private static long cachedModified;
+    private static long cachedLength;
+    private static WorkoutPlan cachedPlan;
+
+    // Saves a WorkoutPlan to the file, including some header info
+    public static void savePlan(WorkoutPlan plan) {
+        savePlan(plan, new File(FILE));
+    }
+
+    // Saves a WorkoutPlan to the given file (used for batches, one file per client).
+    // The plan is written to a temp file next to it and then moved over it, so readers and
+    // other savers never see a half-written file; the last save to finish is the one that stays.
+    public static void savePlan(WorkoutPlan plan, File file) {
+        long start = System.nanoTime();
+        File tmp = null;
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            tmp = File.createTempFile(file.getName(), ".tmp", dir);
+            try (PrintWriter out = new PrintWriter(new FileWriter(tmp))) {
+                out.println("# WORKOUT PLAN");
+                out.println(GENERATED + dateFormat().format(plan.getCreated()));
+                out.println(GOALS + plan.getGoals());
+                out.println(LEVEL + plan.getLevel());
+                out.println(TIME + plan.getTime());
+                // Only print favorite and special if they aren't empty
+                if (plan.getFav() != null && !plan.getFav().isEmpty()) out.println(FAVORITE + plan.getFav());
+                if (plan.getSpecial() != null && !plan.getSpecial().isEmpty()) out.println(SPECIAL + plan.getSpecial());
+                out.println("#");
+                out.println("# ========================");
+                out.println();
+                // The actual workout plan content goes here
+                out.println(plan.getContent());
+                if (out.checkError()) throw new IOException("Could not write " + tmp);
+            }
+            // Moving and remembering go together, so the cache always describes what's in the file
+            synchronized (PlanManager.class) {
+                WorkoutManager.replace(tmp.toPath(), file.toPath());
+                // We know what's in the file now, so the next load doesn't need to read it back
+                remember(file, plan);
+            }
+            System.out.println("Workout plan saved to " + file);
+        } catch (IOException e) {
+            ERRORS.increment();
+            System.err.println("Error saving workout plan: " + e.getMessage());
+            if (tmp != null) tmp.delete();
+        } finally {
+            SAVE_TIME.recordSince(start);
+        }
+    }
+
+    // Loads just the plan content (skips all the header lines)
+    public static String loadPlanContent() {
+        WorkoutPlan plan = loadPlan();
+        return plan != null ? plan.getContent() : null;
+    }
+
+    // Loads the plan file with its header (goals, level, time, favorite, special, generated date)
+    public static WorkoutPlan loadPlan() {
+        return loadPlan(new File(FILE));
+    }
+
+    // Loads a plan file with its header. The file is read in one pass and the result is kept
+    // until the file changes (checked by its modification time and size), so asking again is free.
+    // Returns null if there is no such file or it can't be read.
+    public static synchronized WorkoutPlan loadPlan(File file) {
+        if (!file.exists()) return null; // If the file doesn't exist, nothing to load
+        if (cachedPlan != null && file.equals(cachedFile) && file.lastModified() == cachedModified && file.length() == cachedLength) {
+            LOAD_CACHE_HITS.increment();
+            return cachedPlan;
+        }
+        long start = System.nanoTime();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String goals = "", level = "", time = "", fav = "", special = "";
+            Date created = null;
+            String line;
+            // Header lines until the first empty line, the plan itself after that
+            while ((line = in.readLine()) != null && !line.trim().isEmpty()) {
+                if (line.startsWith(GENERATED)) created = parseDate(line.substring(GENERATED.length()));
+                else if (line.startsWith(GOALS)) goals = line.substring(GOALS.length());
+                else if (line.startsWith(LEVEL)) level = line.substring(LEVEL.length());
+                else if (line.startsWith(TIME)) time = line.substring(TIME.length());
+                else if (line.startsWith(FAVORITE)) fav = line.substring(FAVORITE.length());
+                else if (line.startsWith(SPECIAL)) special = line.substring(SPECIAL.length());
+            }
+            StringWriter content = new StringWriter();
+            in.transferTo(content);
+            if (created == null) created = new Date(file.lastModified());
+            WorkoutPlan plan = new WorkoutPlan(0, stripLastNewline(content.toString()), created, goals, level, time, fav, special);
+            remember(file, plan);
+            return plan;
+        } catch (IOException e) {
+            ERRORS.increment();
+            System.err.println("Error loading workout plan: " + e.getMessage());
+            return null;
+        } finally {
+            LOAD_TIME.recordSince(start);
+        }
+    }
+
+    // Checks if the plan file exists and isn't empty
+    public static boolean planExists() {
+        File file = new File(FILE);
+        return file.exists() && file.length() > 0;
+    }
+
+    private static void remember(File file, WorkoutPlan plan) {
+        cachedFile = file;
+        cachedModified = file.lastModified();
+        cachedLength = file.length();
+        cachedPlan = plan;
+    }
+
+    // The plan is written with println, so drop the line break that added
+    private static String stripLastNewline(String s) {
+        if (s.endsWith("\r\n")) return s.substring(0, s.length() - 2);
+        if (s.endsWith("\n")) return s.substring(0, s.length() - 1);
+        return s;
+    }
+
+    private static Date parseDate(String s) {
+        try {
+            return dateFormat().parse(s.trim());
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    // SimpleDateFormat isn't thread-safe, so each use gets its own
+    private static SimpleDateFormat dateFormat() {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    }
+}
\ No newline at end of file
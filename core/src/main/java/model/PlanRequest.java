@@ -0,0 +1,31 @@
+package model;
+
+/**
+ * One client's answers from the start screen, i.e. the inputs for one workout plan.
+ */
+public class PlanRequest {
+    private final String goals;
+    private final String level;
+    private final String time;
+    private final String fav;
+    private final String special;
+
+    public PlanRequest(String goals, String level, String time, String fav, String special) {
+        this.goals = goals;
+        this.level = level;
+        this.time = time;
+        this.fav = fav;
+        this.special = special;
+    }
+
+    public String getGoals() { return goals; }
+    public String getLevel() { return level; }
+    public String getTime() { return time; }
+    public String getFav() { return fav; }
+    public String getSpecial() { return special; }
+
+    // Same key AiClient caches this request under
+    public String key() {
+        return AiClient.requestKey(goals, level, time, fav, special);
+    }
+}
@@ -0,0 +1,235 @@
+package model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps every generated workout plan, with its inputs and creation time.
+ *
+ * Plans are appended to a data file and never rewritten. A second, fixed-width index file says
+ * where each plan starts, so plan number 'id' (1, 2, 3, ...) is found with one seek, and the
+ * latest plan is simply the last index entry. Saving touches only the end of the two files,
+ * however long the history gets.
+ *
+ * Layout, all numbers big-endian:
+ *   index:  magic "PLIX" | version (short) | reserved (short), then per plan:
+ *           offset in data file (long) | record length (int) | CRC32 of the record (int)
+ *   data:   per plan: created millis (long) | goals | level | time | fav | special | content
+ *           (each string: byte length (int) + UTF-8 bytes)
+ *
+ * The data is written (and synced) before its index entry, so a crash in between only leaves an
+ * unindexed tail on the data file, which gets cut off the next time the store is opened.
+ */
+public class PlanStore {
+    static final int MAGIC = 0x504C4958; // "PLIX"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_SIZE = 16;
+    // Default files, next to workouts.txt
+    private static final String FILE = "plan_history.dat";
+
+    private final Path dataFile;
+    private final Path indexFile;
+    // Opened on first use
+    private FileChannel data;
+    private FileChannel index;
+    // Number of stored plans (= the latest id); written under the lock, read without it
+    private volatile long count = -1;
+    // Where the next record goes in the data file
+    private long dataEnd;
+    // The newest plan, kept in memory so asking for it doesn't touch the disk
+    private volatile WorkoutPlan latest;
+
+    public PlanStore() {
+        this(FILE);
+    }
+
+    // plans.dat -> data in plans.dat, index in plans.idx
+    public PlanStore(String file) {
+        this.dataFile = Paths.get(file);
+        String name = dataFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.indexFile = dataFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".idx");
+    }
+
+    // Appends a plan and returns it as stored (with its new id)
+    public synchronized WorkoutPlan save(WorkoutPlan plan) throws IOException {
+        open();
+        byte[] record = encode(plan);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        writeFully(data, ByteBuffer.wrap(record), dataEnd);
+        data.force(false);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE).putLong(dataEnd).putInt(record.length).putInt((int) crc.getValue());
+        entry.flip();
+        writeFully(index, entry, HEADER_SIZE + count * ENTRY_SIZE);
+        index.force(false);
+        dataEnd += record.length;
+        WorkoutPlan stored = new WorkoutPlan(count + 1, plan.getContent(), plan.getCreated(), plan.getGoals(), plan.getLevel(),
+                plan.getTime(), plan.getFav(), plan.getSpecial());
+        latest = stored;
+        count++;
+        return stored;
+    }
+
+    // Returns plan number 'id', or null if there's no such plan
+    public WorkoutPlan get(long id) throws IOException {
+        open();
+        if (id < 1 || id > count) return null;
+        WorkoutPlan last = latest;
+        if (last != null && last.getId() == id) return last;
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        readFully(index, entry, HEADER_SIZE + (id - 1) * ENTRY_SIZE);
+        entry.flip();
+        long offset = entry.getLong();
+        int length = entry.getInt();
+        int expected = entry.getInt();
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(data, record, offset);
+        CRC32 crc = new CRC32();
+        crc.update(record.array());
+        if ((int) crc.getValue() != expected) throw new IOException("Checksum mismatch for plan " + id + " in " + dataFile);
+        return decode(id, record.array());
+    }
+
+    // Returns the newest plan, or null if nothing was stored yet
+    public WorkoutPlan getLatest() throws IOException {
+        open();
+        WorkoutPlan last = latest;
+        long n = count;
+        if (last == null && n > 0) {
+            last = get(n);
+            // Read outside the lock, so only keep it if no newer plan was saved meanwhile
+            synchronized (this) {
+                if (latest == null && count == n) latest = last;
+                else if (latest != null) last = latest;
+            }
+        }
+        return last;
+    }
+
+    // Returns up to 'max' plans, newest first
+    public List<WorkoutPlan> getHistory(int max) throws IOException {
+        open();
+        List<WorkoutPlan> res = new ArrayList<>();
+        for (long id = count; id >= 1 && res.size() < max; id--) res.add(get(id));
+        return res;
+    }
+
+    // How many plans are stored
+    public long size() throws IOException {
+        open();
+        return count;
+    }
+
+    public synchronized void close() throws IOException {
+        if (data != null) data.close();
+        if (index != null) index.close();
+        data = null;
+        index = null;
+        count = -1;
+        latest = null;
+    }
+
+    // Opens both files and cuts off anything a crash left half written
+    private void open() throws IOException {
+        if (count >= 0) return;
+        synchronized (this) {
+            if (count >= 0) return;
+            data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (index.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+                header.flip();
+                writeFully(index, header, 0);
+                index.force(true);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                readFully(index, header, 0);
+                header.flip();
+                if (header.getInt() != MAGIC) throw new IOException(indexFile + " is not a plan history index");
+                short version = header.getShort();
+                if (version != VERSION) throw new IOException("Unsupported plan history version " + version);
+            }
+            long entries = (index.size() - HEADER_SIZE) / ENTRY_SIZE;
+            long end = 0;
+            // Drop index entries pointing past the end of the data (shouldn't happen, data is synced first)
+            while (entries > 0) {
+                ByteBuffer entry = ByteBuffer.allocate(12);
+                readFully(index, entry, HEADER_SIZE + (entries - 1) * ENTRY_SIZE);
+                entry.flip();
+                end = entry.getLong() + entry.getInt();
+                if (end <= data.size()) break;
+                entries--;
+                end = 0;
+            }
+            if (index.size() != HEADER_SIZE + entries * ENTRY_SIZE) index.truncate(HEADER_SIZE + entries * ENTRY_SIZE);
+            if (data.size() > end) {
+                System.err.println("Discarding " + (data.size() - end) + " bytes of incomplete plan history");
+                data.truncate(end);
+            }
+            dataEnd = end;
+            count = entries;
+        }
+    }
+
+    private static byte[] encode(WorkoutPlan plan) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(plan.getCreated().getTime());
+        writeString(out, plan.getGoals());
+        writeString(out, plan.getLevel());
+        writeString(out, plan.getTime());
+        writeString(out, plan.getFav());
+        writeString(out, plan.getSpecial());
+        writeString(out, plan.getContent());
+        return bytes.toByteArray();
+    }
+
+    private static WorkoutPlan decode(long id, byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        Date created = new Date(in.readLong());
+        String goals = readString(in);
+        String level = readString(in);
+        String time = readString(in);
+        String fav = readString(in);
+        String special = readString(in);
+        String content = readString(in);
+        return new WorkoutPlan(id, content, created, goals, level, time, fav, special);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) throw new IOException("Corrupt string length " + len);
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) position += ch.write(buf, position);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0) throw new EOFException("Unexpected end of plan history");
+            position += n;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out calls so no more than a set number start per second.
+ *
+ * Callers reserve the next free slot and sleep until it comes up, so a burst of callers
+ * gets lined up evenly instead of all hitting the API at once.
+ */
+public class RateLimiter {
+    // Time between two permits, in nanoseconds (0 means no limit)
+    private final long intervalNanos;
+    // When the next permit can be handed out
+    private long nextFree = System.nanoTime();
+
+    // permitsPerSecond <= 0 turns the limiter off
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    // Waits until the caller is allowed to go
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    // Takes the next slot and returns how long to wait for it
+    private synchronized long reserve() {
+        if (intervalNanos == 0) return 0;
+        long now = System.nanoTime();
+        // An idle limiter doesn't bank permits, so a quiet spell can't turn into a burst later
+        if (nextFree - now < 0) nextFree = now;
+        long wait = nextFree - now;
+        nextFree += intervalNanos;
+        return wait;
+    }
+}
@@ -0,0 +1,78 @@
+package model;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed AI requests are worth trying again, and how long to wait first.
+ *
+ * Waits grow exponentially with "full jitter" (a random time between 0 and the current cap),
+ * so a burst of clients that got rate limited together don't all come back at the same moment.
+ * If the server sends Retry-After we wait that long instead, or give up if it's longer than
+ * we're willing to wait.
+ */
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    // 4 attempts, waits of up to 0.5s, 1s, 2s between them, never more than 10s
+    public RetryPolicy() {
+        this(4, 500, 10_000);
+    }
+
+    // maxAttempts counts the first try too, so 1 means never retry
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be at least 1");
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+
+    // Rate limits, server errors and failed connections are worth another go. Client errors
+    // (bad key, bad request) will fail the same way again, a cancelled request was given up on,
+    // and a request that timed out while waiting for the answer has already used up its time.
+    public boolean isRetryable(IOException e) {
+        if (e instanceof AiHttpException) {
+            int status = ((AiHttpException) e).getStatusCode();
+            return status == 408 || status == 429 || status >= 500;
+        }
+        if (e instanceof InterruptedIOException) return false;
+        if (e instanceof HttpTimeoutException) return e instanceof HttpConnectTimeoutException;
+        return true;
+    }
+
+    // How long to wait before try number 'attempt' + 1 (attempt starts at 1), or -1 to stop trying
+    public long delayMillis(int attempt, IOException failure) {
+        if (attempt >= maxAttempts) return -1;
+        long retryAfter = failure instanceof AiHttpException ? ((AiHttpException) failure).getRetryAfterMillis() : -1;
+        if (retryAfter >= 0) return retryAfter <= maxDelayMillis ? retryAfter : -1;
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    // Reads a Retry-After header: either a number of seconds or an HTTP date. -1 if missing or unreadable.
+    public static long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) return -1;
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // not a number, try a date
+        }
+        try {
+            long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Makes identical requests that overlap in time share one piece of work.
+ *
+ * The first caller for a key starts the work; anyone asking for the same key before it finishes
+ * joins it and gets the same result. Work can also report progress (P, e.g. streamed text):
+ * everything reported so far is replayed to late joiners, then they get the rest live.
+ *
+ * Each caller gets its own future. Cancelling it only drops that caller; the work itself is
+ * cancelled once every caller has cancelled.
+ */
+public class SingleFlight<K, P, V> {
+    private final ConcurrentHashMap<K, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    // Runs start(progress) for this key, or joins the run already going.
+    // 'onProgress' (may be null) gets every progress report for the run.
+    public CompletableFuture<V> run(K key, Consumer<P> onProgress, Function<Consumer<P>, CompletableFuture<V>> start) {
+        Flight created = new Flight();
+        Flight flight = flights.putIfAbsent(key, created);
+        if (flight != null) {
+            coalesced.incrementAndGet();
+            return flight.join(onProgress);
+        }
+        started.incrementAndGet();
+        CompletableFuture<V> mine = created.join(onProgress);
+        CompletableFuture<V> work;
+        try {
+            work = start.apply(created::publish);
+        } catch (RuntimeException e) {
+            work = CompletableFuture.failedFuture(e);
+        }
+        created.setWork(work);
+        work.whenComplete((v, e) -> {
+            // Off the map first, so a request after this point starts fresh
+            flights.remove(key, created);
+            if (e != null) created.shared.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            else created.shared.complete(v);
+        });
+        return mine;
+    }
+
+    // How many runs were started, and how many callers joined a run instead of starting one
+    public long getStarted() { return started.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    // How many runs are going right now
+    public int getInFlight() { return flights.size(); }
+
+    // One run and the callers waiting on it
+    private final class Flight {
+        final CompletableFuture<V> shared = new CompletableFuture<>();
+        private final List<P> history = new ArrayList<>();
+        private final List<Consumer<P>> listeners = new ArrayList<>();
+        private int waiters;
+        private CompletableFuture<V> work;
+
+        synchronized void publish(P progress) {
+            history.add(progress);
+            for (Consumer<P> l : listeners) l.accept(progress);
+        }
+
+        synchronized CompletableFuture<V> join(Consumer<P> onProgress) {
+            if (onProgress != null) {
+                for (P p : history) onProgress.accept(p);
+                listeners.add(onProgress);
+            }
+            waiters++;
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            shared.whenComplete((v, e) -> {
+                if (e != null) mine.completeExceptionally(e);
+                else mine.complete(v);
+            });
+            mine.whenComplete((v, e) -> {
+                if (mine.isCancelled()) leave(onProgress);
+            });
+            return mine;
+        }
+
+        synchronized void setWork(CompletableFuture<V> work) {
+            this.work = work;
+            if (waiters == 0) work.cancel(true); // everyone cancelled before it even started
+        }
+
+        private synchronized void leave(Consumer<P> onProgress) {
+            if (onProgress != null) listeners.remove(onProgress);
+            waiters--;
+            if (waiters == 0 && work != null && !shared.isDone()) work.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes trace lines on a background thread, so the call being traced never waits on the disk.
+ *
+ * Lines go into a fixed-size ring buffer and the "trace-writer" thread takes them out in
+ * batches, writing and flushing each batch at once. If the buffer is full (the disk can't keep
+ * up) new lines are dropped and counted instead of holding anyone up.
+ */
+public class TraceWriter implements Closeable {
+    private static final Metrics.Counter DROPPED = Metrics.counter("trace_lines_dropped_total", "Trace lines dropped because the trace buffer was full");
+
+    private final ArrayBlockingQueue<String> ring;
+    private final Writer out;
+    private final Thread thread;
+    // Lines accepted into the ring, and lines written out, so flush() knows what to wait for
+    private final AtomicLong accepted = new AtomicLong();
+    private long written; // guarded by 'this'
+    private final AtomicLong dropped = new AtomicLong();
+    // Set under 'closeLock', which offer also holds while it checks it and queues the line, so no
+    // line gets in after close() decided the writer can stop
+    private final Object closeLock = new Object();
+    private volatile boolean closed;
+
+    // Appends to 'file', holding up to 'capacity' lines that haven't been written yet
+    public TraceWriter(File file, int capacity) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)), capacity);
+    }
+
+    public TraceWriter(Writer out, int capacity) {
+        this.ring = new ArrayBlockingQueue<>(capacity);
+        this.out = out;
+        this.thread = new Thread(this::run, "trace-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Queues a line to be written; returns false (and counts it) if the buffer is full or closed
+    public boolean offer(String line) {
+        boolean queued;
+        synchronized (closeLock) {
+            queued = !closed && ring.offer(line);
+        }
+        if (!queued) {
+            dropped.incrementAndGet();
+            DROPPED.increment();
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    // How many lines were dropped
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // Waits until every line queued so far is written
+    public void flush() {
+        long target = accepted.get();
+        synchronized (this) {
+            while (written < target && thread.isAlive()) {
+                try {
+                    wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Stops taking lines, lets the writer thread write whatever is queued and then stops it
+    @Override
+    public void close() {
+        synchronized (closeLock) {
+            if (closed) return;
+            closed = true;
+        }
+        thread.interrupt();
+        try {
+            thread.join(1000);
+            out.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error closing trace file: " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        List<String> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(ring.take());
+            } catch (InterruptedException e) {
+                // closed: nothing new can come in, so write what's left below and stop
+            }
+            ring.drainTo(batch);
+            try {
+                for (String line : batch) {
+                    out.write(line);
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Error writing trace file: " + e.getMessage());
+            }
+            synchronized (this) {
+                written += batch.size();
+                notifyAll();
+            }
+            batch.clear();
+            if (closed && ring.isEmpty()) return;
+        }
+    }
+}
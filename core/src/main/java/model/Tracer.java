@@ -0,0 +1,167 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records what happened during a sample of calls (e.g. plan generations), one JSON line per call:
+ *
+ *   {"trace":"ai.generate","id":"5f0c2a9e41d7b3c8","start":"2025-06-15T09:30:00.123Z","ms":812.402,"ok":true,
+ *    "attrs":{"stream":true},"events":[{"name":"send","ms":0.210,"attempt":1},{"name":"first_byte","ms":640.118,"status":200}, ...]}
+ *
+ * Each event's "ms" is the time since the call started, so the gaps between events are the
+ * spans (waiting for the server, streaming the body, ...). Whether a call is traced is decided
+ * when it starts, at the configured sample rate; calls that aren't cost one random number.
+ * Finished traces go to a TraceWriter, which writes them out on its own thread.
+ *
+ * The default tracer is set up from system properties: -Dtrace.sampleRate=0.1 traces one call
+ * in ten (0, the default, traces nothing), and -Dtrace.file=ai_trace.log says where they go.
+ */
+public final class Tracer {
+    public static final Tracer OFF = new Tracer(0, null);
+    private static final String DEFAULT_FILE = "ai_trace.log";
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static Tracer defaultTracer;
+
+    private final double sampleRate;
+    private final TraceWriter writer;
+
+    // Traces a fraction 'sampleRate' (0..1) of calls, written to 'writer'
+    public Tracer(double sampleRate, TraceWriter writer) {
+        this.sampleRate = writer == null ? 0 : Math.max(0, Math.min(1, sampleRate));
+        this.writer = writer;
+    }
+
+    // The tracer configured by -Dtrace.sampleRate and -Dtrace.file (OFF unless the rate is above 0)
+    public static synchronized Tracer getDefault() {
+        if (defaultTracer == null) {
+            double rate = Double.parseDouble(System.getProperty("trace.sampleRate", "0"));
+            defaultTracer = OFF;
+            if (rate > 0) {
+                try {
+                    TraceWriter writer = new TraceWriter(new File(System.getProperty("trace.file", DEFAULT_FILE)), DEFAULT_CAPACITY);
+                    Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "trace-flush-on-exit"));
+                    defaultTracer = new Tracer(rate, writer);
+                } catch (IOException e) {
+                    System.err.println("Error opening trace file, tracing is off: " + e.getMessage());
+                }
+            }
+        }
+        return defaultTracer;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    // Starts a trace for one call. Unsampled calls get a trace that ignores everything.
+    public Trace start(String name) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) return Trace.NOOP;
+        return new Trace(writer, name);
+    }
+
+    // One call being traced. Only does anything if isSampled().
+    public static final class Trace {
+        static final Trace NOOP = new Trace();
+
+        private final TraceWriter writer;
+        private final String name;
+        private final String id;
+        private final long startNanos;
+        private final long startMillis;
+        // JSON so far: the attributes and events, without their surrounding braces
+        private final StringBuilder attrs;
+        private final StringBuilder events;
+        private boolean ended;
+
+        private Trace() {
+            this.writer = null;
+            this.name = null;
+            this.id = null;
+            this.startNanos = 0;
+            this.startMillis = 0;
+            this.attrs = null;
+            this.events = null;
+        }
+
+        private Trace(TraceWriter writer, String name) {
+            this.writer = writer;
+            this.name = name;
+            this.id = String.format("%016x", ThreadLocalRandom.current().nextLong());
+            this.startNanos = System.nanoTime();
+            this.startMillis = System.currentTimeMillis();
+            this.attrs = new StringBuilder();
+            this.events = new StringBuilder();
+        }
+
+        public boolean isSampled() {
+            return writer != null;
+        }
+
+        // The call id (null if not sampled)
+        public String getId() {
+            return id;
+        }
+
+        // Something about the call as a whole, e.g. attr("stream", true)
+        public synchronized void attr(String key, Object value) {
+            if (writer == null || ended) return;
+            if (attrs.length() > 0) attrs.append(',');
+            appendField(attrs, key, value);
+        }
+
+        // Something that happened now, e.g. event("first_byte")
+        public void event(String eventName) {
+            event(eventName, null, null);
+        }
+
+        // Something that happened now, with one detail, e.g. event("send", "attempt", 2)
+        public synchronized void event(String eventName, String key, Object value) {
+            if (writer == null || ended) return;
+            if (events.length() > 0) events.append(',');
+            events.append("{\"name\":");
+            GeminiJson.appendQuoted(events, eventName);
+            events.append(",\"ms\":").append(millisSince(startNanos));
+            if (key != null) {
+                events.append(',');
+                appendField(events, key, value);
+            }
+            events.append('}');
+        }
+
+        // Finishes the call ('error' is null if it went fine) and hands the trace to the writer
+        public void end(Throwable error) {
+            String line;
+            synchronized (this) {
+                if (writer == null || ended) return;
+                ended = true;
+                StringBuilder out = new StringBuilder(128 + attrs.length() + events.length());
+                out.append("{\"trace\":");
+                GeminiJson.appendQuoted(out, name);
+                out.append(",\"id\":\"").append(id).append("\",\"start\":\"").append(Instant.ofEpochMilli(startMillis))
+                        .append("\",\"ms\":").append(millisSince(startNanos)).append(",\"ok\":").append(error == null);
+                if (error != null) {
+                    out.append(",\"error\":");
+                    GeminiJson.appendQuoted(out, error.toString());
+                }
+                out.append(",\"attrs\":{").append(attrs).append("},\"events\":[").append(events).append("]}");
+                line = out.toString();
+            }
+            writer.offer(line);
+        }
+
+        private static void appendField(StringBuilder out, String key, Object value) {
+            GeminiJson.appendQuoted(out, key);
+            out.append(':');
+            if (value instanceof Number || value instanceof Boolean) out.append(value);
+            else GeminiJson.appendQuoted(out, String.valueOf(value));
+        }
+
+        private static String millisSince(long nanos) {
+            return String.format(Locale.ROOT, "%.3f", (System.nanoTime() - nanos) / 1e6);
+        }
+    }
+}
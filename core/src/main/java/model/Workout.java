@@ -3,6 +3,8 @@ package model;
 import java.util.Date;
 
 public class Workout {
+    // Stable unique id, handed out by WorkoutManager when the workout is added (0 until then)
+    private long id;
     // The name of the workout (like "Push Day" or "Cardio")
     private String name;
     // When the workout happened
@@ -23,7 +25,16 @@ public class Workout {
         this.notes = notes;
     }
 
+    // Same, for a workout that already has an id (read back from a file)
+    public Workout(long id, String name, Date date, int duration, String desc, String notes) {
+        this(name, date, duration, desc, notes);
+        this.id = id;
+    }
+
     // Getters and setters let you read or change the info if you need to
+    public long getId() { return id; }
+    // Only WorkoutManager gives out ids
+    void setId(long id) { this.id = id; }
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     public Date getDate() { return date; }
@@ -0,0 +1,189 @@
+package model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot format for the workout log (workouts.bin).
+ *
+ * Layout, all numbers big-endian:
+ *   header:  magic "WKLG" | version (short) | reserved (short) | journal seq (long) | record count (int)
+ *   record:  record length (int, bytes after this field) | date millis (long) | duration (int) | id (long)
+ *            | name | description | notes       (each string: byte length (int) + UTF-8 bytes)
+ *   trailer: CRC32 of everything before it (int)
+ *
+ * Loading skips all the text splitting and date parsing of the text format: the file is memory-mapped
+ * (see MappedWorkoutStore) and names, descriptions and notes are only decoded when something reads
+ * them. That saves the decoding, but loading still creates a Workout per record. The CRC32 trailer is
+ * only checked on a mapped load with -Dworkouts.verify=true, since it means reading every page.
+ * Windows won't replace a file that is still mapped, which compaction has to do, so there the
+ * file is read in full (and always checked) instead. Use importText/exportText
+ * (or the main method) to convert to and from workouts.txt. The text format only keeps whole seconds,
+ * so that is the one thing a binary to text conversion can drop. Version 1 files (from before
+ * workouts had ids) have no id field and are still read, with every id 0.
+ */
+public class WorkoutBinaryFormat implements WorkoutFormat {
+    static final int MAGIC = 0x574B4C47; // "WKLG"
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 20;
+    // Fixed part of a record after its length field: date millis + duration + id
+    static final int FIXED_SIZE = 20;
+    // Whether read() maps the file instead of reading it
+    private static final boolean MAP_ON_READ = !System.getProperty("os.name", "").startsWith("Windows");
+    // Whether a mapped read also checks the CRC32 trailer. That reads every page of the file, which
+    // is what mapping avoids at startup, so it is off unless -Dworkouts.verify=true.
+    private static final boolean VERIFY_MAPPED = Boolean.getBoolean("workouts.verify");
+
+    @Override
+    public Snapshot read(File file) throws IOException {
+        List<Workout> workouts = new ArrayList<>();
+        if (!file.exists()) return new Snapshot(workouts, 0); // nothing saved yet
+        if (MAP_ON_READ) return readMapped(file, VERIFY_MAPPED);
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(new FileInputStream(file)), crc))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a binary workout file");
+            short version = in.readShort();
+            if (version != 1 && version != VERSION) throw new IOException("Unsupported workout file version " + version);
+            in.readShort(); // reserved
+            long journalSeq = in.readLong();
+            int count = in.readInt();
+            workouts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                in.readInt(); // record length, only needed when skipping records
+                long millis = in.readLong();
+                int duration = in.readInt();
+                long id = version == 1 ? 0 : in.readLong();
+                String name = readString(in);
+                String desc = readString(in);
+                String notes = readString(in);
+                workouts.add(new Workout(id, name, new Date(millis), duration, desc, notes));
+            }
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) throw new IOException("Checksum mismatch in " + file);
+            return new Snapshot(workouts, journalSeq);
+        } catch (EOFException e) {
+            throw new IOException("Truncated workout file " + file, e);
+        }
+    }
+
+    // Maps the file and hands out workouts whose strings are decoded from the mapping on first use.
+    // Closing the store only closes the channel; the mapping lives as long as those workouts do.
+    // Opening the store still checks the header and every record's bounds; the checksum is optional.
+    private static Snapshot readMapped(File file, boolean verify) throws IOException {
+        try (MappedWorkoutStore store = MappedWorkoutStore.open(file)) {
+            if (verify && !store.verifyChecksum()) throw new IOException("Checksum mismatch in " + file);
+            List<Workout> workouts = new ArrayList<>(store.size());
+            for (int i = 0; i < store.size(); i++) workouts.add(store.get(i));
+            return new Snapshot(workouts, store.getJournalSeq());
+        }
+    }
+
+    @Override
+    public void write(File file, List<Workout> workouts, long journalSeq) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fos), crc));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeLong(journalSeq);
+            out.writeInt(workouts.size());
+            for (Workout w : workouts) {
+                byte[] name = bytes(w.getName());
+                byte[] desc = bytes(w.getDescription());
+                byte[] notes = bytes(w.getNotes());
+                out.writeInt(FIXED_SIZE + 12 + name.length + desc.length + notes.length);
+                out.writeLong(w.getDate().getTime());
+                out.writeInt(w.getDuration());
+                out.writeLong(w.getId());
+                writeBytes(out, name);
+                writeBytes(out, desc);
+                writeBytes(out, notes);
+            }
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    // Converts a workouts.txt file (and its journal) into the binary format
+    public static void importText(File textFile, File binaryFile) throws IOException {
+        convert(textFile, new WorkoutTextFormat(), binaryFile, new WorkoutBinaryFormat());
+    }
+
+    // Converts a binary workout file (and its journal) back into the text format (for copy-paste export)
+    public static void exportText(File binaryFile, File textFile) throws IOException {
+        convert(binaryFile, new WorkoutBinaryFormat(), textFile, new WorkoutTextFormat());
+    }
+
+    // Loads 'from' the way the app does (snapshot plus journal) and writes everything to 'to' as a
+    // snapshot that covers no journal records. 'to' is written next to itself first and then moved
+    // over, so a failed conversion leaves the old file alone. A journal left next to 'to' belonged to
+    // the file being replaced, so it goes too.
+    private static void convert(File from, WorkoutFormat fromFormat, File to, WorkoutFormat toFormat) throws IOException {
+        // Throws if the file is damaged (WorkoutManager would just log it and load nothing)
+        if (fromFormat instanceof WorkoutBinaryFormat && MAP_ON_READ) readMapped(from, true);
+        else fromFormat.read(from);
+        List<Workout> workouts = new WorkoutManager(from.getPath(), fromFormat).getAll();
+        File tmp = new File(to.getPath() + ".tmp");
+        try {
+            toFormat.write(tmp, workouts, 0);
+            WorkoutManager.replace(tmp.toPath(), to.toPath());
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        Files.deleteIfExists(WorkoutManager.journalPathFor(to.toPath()));
+    }
+
+    // Size of the fixed fields of a record in a file of the given version
+    static int fixedSize(short version) {
+        return version == 1 ? 12 : FIXED_SIZE;
+    }
+
+    // Checks the first bytes of a file for the binary format's magic number
+    public static boolean isBinary(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) throw new IOException("Corrupt string length " + len);
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // Command line converter:
+    //   java model.WorkoutBinaryFormat import workouts.txt workouts.bin
+    //   java model.WorkoutBinaryFormat export workouts.bin workouts.txt
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.err.println("Usage: WorkoutBinaryFormat import <text file> <binary file>");
+            System.err.println("       WorkoutBinaryFormat export <binary file> <text file>");
+            System.exit(1);
+        }
+        if (args[0].equals("import")) importText(new File(args[1]), new File(args[2]));
+        else exportText(new File(args[1]), new File(args[2]));
+        System.out.println("Converted " + args[1] + " to " + args[2]);
+    }
+}
@@ -0,0 +1,134 @@
+package model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only, column-by-column copy of the workout log for totals and stats.
+ *
+ * Instead of one Workout object per entry (with its own Date and Strings), each field is one
+ * primitive array: dates as epoch millis, durations, ids, and exercise names as int codes into
+ * a shared table of distinct names. Rows are sorted by date, so a date range is two binary
+ * searches, and totals over it are a tight loop over an array that allocates nothing.
+ * Get one from WorkoutManager.getColumns(); it doesn't change when the log does.
+ */
+public final class WorkoutColumns {
+    private final long[] dates;
+    private final int[] durations;
+    private final long[] ids;
+    private final int[] nameCodes;
+    // Distinct exercise names; nameCodes[i] indexes into this
+    private final String[] names;
+
+    private WorkoutColumns(long[] dates, int[] durations, long[] ids, int[] nameCodes, String[] names) {
+        this.dates = dates;
+        this.durations = durations;
+        this.ids = ids;
+        this.nameCodes = nameCodes;
+        this.names = names;
+    }
+
+    // Builds the columns from workouts that are already in date order
+    static WorkoutColumns of(Collection<Workout> byDate) {
+        int n = byDate.size();
+        long[] dates = new long[n];
+        int[] durations = new int[n];
+        long[] ids = new long[n];
+        int[] nameCodes = new int[n];
+        Map<String, Integer> codes = new HashMap<>();
+        int i = 0;
+        for (Workout w : byDate) {
+            dates[i] = w.getDate().getTime();
+            durations[i] = w.getDuration();
+            ids[i] = w.getId();
+            String name = w.getName() == null ? "" : w.getName();
+            Integer code = codes.get(name);
+            if (code == null) {
+                code = codes.size();
+                codes.put(name, code);
+            }
+            nameCodes[i] = code;
+            i++;
+        }
+        String[] names = new String[codes.size()];
+        for (Map.Entry<String, Integer> e : codes.entrySet()) names[e.getValue()] = e.getKey();
+        return new WorkoutColumns(dates, durations, ids, nameCodes, names);
+    }
+
+    // Number of workouts
+    public int size() { return dates.length; }
+    public long getDateMillis(int i) { return dates[i]; }
+    public int getDuration(int i) { return durations[i]; }
+    public long getId(int i) { return ids[i]; }
+    public int getNameCode(int i) { return nameCodes[i]; }
+    public String getName(int i) { return names[nameCodes[i]]; }
+
+    // The name table: how many distinct names there are, the name for a code, the code for a name (-1 if none)
+    public int nameCount() { return names.length; }
+    public String nameOf(int code) { return names[code]; }
+    public int codeOf(String name) {
+        for (int c = 0; c < names.length; c++) {
+            if (names[c].equals(name)) return c;
+        }
+        return -1;
+    }
+
+    // First row dated at or after 'millis' (size() if none)
+    public int firstAtOrAfter(long millis) {
+        int lo = 0, hi = dates.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (dates[mid] < millis) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // One past the last row dated at or before 'millis'
+    private int endOf(long millis) {
+        return millis == Long.MAX_VALUE ? dates.length : firstAtOrAfter(millis + 1);
+    }
+
+    // Number of workouts between two times (inclusive)
+    public int count(long fromMillis, long toMillis) {
+        if (fromMillis > toMillis) return 0;
+        return endOf(toMillis) - firstAtOrAfter(fromMillis);
+    }
+
+    // Total minutes of all workouts
+    public long totalDuration() {
+        long total = 0;
+        for (int d : durations) total += d;
+        return total;
+    }
+
+    // Total minutes of the workouts between two times (inclusive)
+    public long totalDuration(long fromMillis, long toMillis) {
+        if (fromMillis > toMillis) return 0;
+        long total = 0;
+        for (int i = firstAtOrAfter(fromMillis), end = endOf(toMillis); i < end; i++) total += durations[i];
+        return total;
+    }
+
+    // Total minutes per exercise between two times, indexed by name code
+    public long[] durationByName(long fromMillis, long toMillis) {
+        long[] totals = new long[names.length];
+        if (fromMillis > toMillis) return totals;
+        for (int i = firstAtOrAfter(fromMillis), end = endOf(toMillis); i < end; i++) totals[nameCodes[i]] += durations[i];
+        return totals;
+    }
+
+    // Number of workouts per exercise between two times, indexed by name code
+    public int[] countByName(long fromMillis, long toMillis) {
+        int[] counts = new int[names.length];
+        if (fromMillis > toMillis) return counts;
+        for (int i = firstAtOrAfter(fromMillis), end = endOf(toMillis); i < end; i++) counts[nameCodes[i]]++;
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkoutColumns[size=" + dates.length + ", names=" + names.length + "]";
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Something that changed in the workout log, as published by WorkoutManager.
+ */
+public final class WorkoutEvent {
+    public enum Type {
+        // One workout was added (at the end of the log) or removed
+        ADDED, REMOVED,
+        // One workout's fields changed: getWorkout() is the new copy, with the same id as the old one
+        UPDATED,
+        // The whole log was (re)loaded: forget what you had and use getWorkouts()
+        BULK_LOADED
+    }
+
+    private final Type type;
+    private final Workout workout;
+    private final List<Workout> workouts;
+
+    private WorkoutEvent(Type type, Workout workout, List<Workout> workouts) {
+        this.type = type;
+        this.workout = workout;
+        this.workouts = workouts;
+    }
+
+    public static WorkoutEvent added(Workout w) { return new WorkoutEvent(Type.ADDED, w, null); }
+    public static WorkoutEvent removed(Workout w) { return new WorkoutEvent(Type.REMOVED, w, null); }
+    public static WorkoutEvent updated(Workout w) { return new WorkoutEvent(Type.UPDATED, w, null); }
+    public static WorkoutEvent bulkLoaded(List<Workout> all) {
+        return new WorkoutEvent(Type.BULK_LOADED, null, Collections.unmodifiableList(all));
+    }
+
+    public Type getType() { return type; }
+    // The workout this is about (null for BULK_LOADED)
+    public Workout getWorkout() { return workout; }
+    // Every workout in the log, in order (BULK_LOADED only, null otherwise)
+    public List<Workout> getWorkouts() { return workouts; }
+
+    @Override
+    public String toString() {
+        return type == Type.BULK_LOADED ? "BULK_LOADED(" + workouts.size() + ")" : type + "(" + workout.getName() + ")";
+    }
+}
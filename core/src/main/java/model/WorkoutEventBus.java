@@ -0,0 +1,120 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands WorkoutEvents to whoever subscribed, so views can apply changes instead of re-reading the whole log.
+ *
+ * Each subscriber picks the Executor its listener runs on (e.g. SwingUtilities::invokeLater).
+ * Events that pile up before the listener gets to run are delivered together as one batch,
+ * and coalesced on the way: an add followed by a remove of the same workout cancels out,
+ * repeated updates collapse into one, and a BULK_LOADED replaces everything queued before it.
+ * Events about the same workout are matched by id, since an update swaps in a new copy.
+ */
+public class WorkoutEventBus {
+    // Gets a batch of changes, oldest first (never empty)
+    public interface Listener {
+        void workoutsChanged(List<WorkoutEvent> events);
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Starts sending events to 'listener' on 'executor'
+    public void subscribe(Listener listener, Executor executor) {
+        subscriptions.add(new Subscription(listener, executor));
+    }
+
+    // Stops sending events to 'listener' (anything already queued for it is dropped)
+    public void unsubscribe(Listener listener) {
+        for (Subscription s : subscriptions) {
+            if (s.listener == listener) {
+                s.cancelled = true;
+                subscriptions.remove(s);
+            }
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    // Queues an event for every subscriber
+    public void publish(WorkoutEvent event) {
+        for (Subscription s : subscriptions) s.post(event);
+    }
+
+    // One listener, and the events waiting for it
+    private static final class Subscription {
+        final Listener listener;
+        final Executor executor;
+        volatile boolean cancelled;
+        // Guarded by 'this'
+        private List<WorkoutEvent> pending = new ArrayList<>();
+        private boolean scheduled;
+
+        Subscription(Listener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void post(WorkoutEvent event) {
+            synchronized (this) {
+                coalesce(pending, event);
+                // A delivery is already on its way and will pick this event up too
+                if (scheduled) return;
+                scheduled = true;
+            }
+            executor.execute(this::deliver);
+        }
+
+        void deliver() {
+            List<WorkoutEvent> batch;
+            synchronized (this) {
+                batch = pending;
+                pending = new ArrayList<>();
+                scheduled = false;
+            }
+            if (!batch.isEmpty() && !cancelled) listener.workoutsChanged(batch);
+        }
+    }
+
+    // Adds an event to a queued batch, dropping whatever it makes pointless
+    static void coalesce(List<WorkoutEvent> pending, WorkoutEvent event) {
+        Workout w = event.getWorkout();
+        switch (event.getType()) {
+            case BULK_LOADED:
+                pending.clear();
+                break;
+            case REMOVED:
+                boolean wasAdded = false;
+                for (int i = pending.size() - 1; i >= 0; i--) {
+                    WorkoutEvent e = pending.get(i);
+                    if (!sameWorkout(e.getWorkout(), w)) continue;
+                    if (e.getType() == WorkoutEvent.Type.ADDED) wasAdded = true;
+                    pending.remove(i);
+                }
+                if (wasAdded) return; // the listener never heard of it, so nothing to remove
+                break;
+            case UPDATED:
+                for (int i = 0; i < pending.size(); i++) {
+                    WorkoutEvent e = pending.get(i);
+                    if (!sameWorkout(e.getWorkout(), w) || e.getType() == WorkoutEvent.Type.REMOVED) continue;
+                    // The queued add or update can carry the new copy instead
+                    pending.set(i, e.getType() == WorkoutEvent.Type.ADDED ? WorkoutEvent.added(w) : event);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        pending.add(event);
+    }
+
+    // Whether two events are about the same workout (null for BULK_LOADED)
+    private static boolean sameWorkout(Workout a, Workout b) {
+        return a == b || (a != null && b != null && a.getId() != 0 && a.getId() == b.getId());
+    }
+}
@@ -0,0 +1,36 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An on-disk format for a full snapshot of the workout log.
+ * WorkoutManager uses one of these for its snapshot file; the journal next to it is always text.
+ */
+public interface WorkoutFormat {
+    // Reads every workout in the file (a missing file reads as an empty snapshot)
+    Snapshot read(File file) throws IOException;
+
+    // Writes every workout to the file, remembering the last journal record they include
+    void write(File file, List<Workout> workouts, long journalSeq) throws IOException;
+
+    // Picks the format from the file name: ".bin" files are binary, everything else is text
+    static WorkoutFormat forFile(String file) {
+        return file.endsWith(".bin") ? new WorkoutBinaryFormat() : new WorkoutTextFormat();
+    }
+
+    // What a snapshot file holds: the workouts and the journal sequence they cover
+    final class Snapshot {
+        private final List<Workout> workouts;
+        private final long journalSeq;
+
+        public Snapshot(List<Workout> workouts, long journalSeq) {
+            this.workouts = workouts;
+            this.journalSeq = journalSeq;
+        }
+
+        public List<Workout> getWorkouts() { return workouts; }
+        public long getJournalSeq() { return journalSeq; }
+    }
+}
@@ -0,0 +1,578 @@
+package model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the workout log in memory and on disk.
+ *
+ * Every workout gets a stable id when it's added, so it can be looked up, changed or removed
+ * by id without caring where it shows up in a list.
+ *
+ * Safe to share between threads: reads (get, getAll, getByDate, getRecent) go straight to concurrent
+ * maps without taking a lock, so they never wait on a save. Writes (add, update, remove) are
+ * serialized on one lock, which also keeps journal records in order. Compaction only holds that
+ * lock to copy the log and to swap in the fresh journal, not while it writes the snapshot.
+ *
+ * By default every write is on disk before add/update/remove return. With write-behind turned on
+ * they only change memory and queue their journal records; flush() writes the queued records
+ * in one go (the caller decides when, e.g. on a timer and at exit).
+ */
+public class WorkoutManager {
+    // Stores all workouts in memory, in the order they were added
+    private final ConcurrentSkipListMap<Long, Workout> workouts = new ConcurrentSkipListMap<>();
+    // Same workouts ordered by date, so range and "most recent" lookups don't scan everything
+    private final ConcurrentSkipListMap<DateKey, Workout> byDate = new ConcurrentSkipListMap<>();
+    // Same workouts by id
+    private final ConcurrentHashMap<Long, Workout> byId = new ConcurrentHashMap<>();
+    // Where each workout (by id) sits in the two ordered maps above (only touched under writeLock)
+    private final Map<Long, DateKey> dateKeys = new HashMap<>();
+    // Tiebreaker for workouts logged at the same millisecond, also the insertion order
+    private long indexSeq;
+    // Next id to hand out (one more than the highest id seen)
+    private long nextId = 1;
+    // Every write goes through this lock
+    private final Object writeLock = new Object();
+    // Held while queued journal records go to disk (taken before writeLock, never after)
+    private final Object flushLock = new Object();
+    // Whether journal records wait in 'pending' for flush() instead of being written right away
+    private boolean writeBehind;
+    // Journal records not on disk yet (write-behind only, guarded by writeLock)
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    // Default file where workouts are saved/loaded
+    private static final String FILE = "workouts.txt";
+    // How many journal records we let pile up before folding them into the snapshot
+    private static final int COMPACT_THRESHOLD = 1000;
+    // Journal record types: an added workout, a tombstone for a removed one, or a changed one
+    private static final String OP_ADD = "A";
+    private static final String OP_DELETE = "D";
+    private static final String OP_UPDATE = "U";
+    // Shared by every WorkoutManager in the process
+    private static final Metrics.Timer LOAD_TIME = Metrics.timer("workout_load_seconds", "Time to load the workout log (snapshot plus journal)");
+    private static final Metrics.Timer JOURNAL_WRITE_TIME = Metrics.timer("workout_journal_write_seconds", "Time to write and sync a batch of journal records");
+    private static final Metrics.Timer COMPACT_TIME = Metrics.timer("workout_compaction_seconds", "Time to fold the journal into a new snapshot");
+    private static final Metrics.Counter ADDED = Metrics.counter("workouts_added_total", "Workouts added");
+    private static final Metrics.Counter REMOVED = Metrics.counter("workouts_removed_total", "Workouts removed");
+    private static final Metrics.Counter UPDATED = Metrics.counter("workouts_updated_total", "Workouts changed");
+    private static final Metrics.Counter SAVE_ERRORS = Metrics.counter("workout_save_errors_total", "Journal writes that failed");
+    // Format of the snapshot file (text or binary), and the text format used for journal lines
+    private final WorkoutFormat format;
+    private final WorkoutTextFormat lineFormat = new WorkoutTextFormat();
+
+    // The snapshot file (full list of workouts) and the journal that gets appended to
+    private final Path file;
+    private final Path journalFile;
+    // Open handle to the journal, opened on the first append
+    private FileChannel journal;
+    // Sequence number of the last journal record written or replayed
+    private long journalSeq;
+    // Sequence number of the last record already folded into the snapshot
+    private long snapshotSeq;
+    // Number of records sitting in the journal right now
+    private int journalRecords;
+    // Background thread that folds the journal into the snapshot
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "workout-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean compactionQueued;
+    // Column copy of the log for stats, built on demand and dropped on the next write
+    private volatile WorkoutColumns columns;
+    // Tells subscribers (the views) what changed
+    private final WorkoutEventBus events = new WorkoutEventBus();
+
+    // Constructor: loads workouts from the default file on creation
+    public WorkoutManager() {
+        this(FILE);
+    }
+
+    // Constructor: loads workouts from the given snapshot file (the journal sits next to it).
+    // Files ending in ".bin" use the binary format, anything else the text format.
+    public WorkoutManager(String file) {
+        this(file, WorkoutFormat.forFile(file));
+    }
+
+    // Constructor: loads workouts from the given snapshot file, stored in the given format
+    public WorkoutManager(String file, WorkoutFormat format) {
+        this.format = format;
+        this.file = Paths.get(file);
+        this.journalFile = journalPathFor(this.file);
+        load();
+    }
+
+    // Adds a workout (giving it an id if it doesn't have one) and appends it to the journal
+    public void add(Workout w) {
+        synchronized (writeLock) {
+            insert(w);
+            append(OP_ADD, w);
+            ADDED.increment();
+            events.publish(WorkoutEvent.added(w));
+        }
+    }
+    // Removes a workout and appends a tombstone to the journal
+    public void remove(Workout w) {
+        remove(w.getId());
+    }
+    // Removes the workout with this id, returns false if there's none
+    public boolean remove(long id) {
+        synchronized (writeLock) {
+            Workout w = delete(id);
+            if (w == null) return false;
+            append(OP_DELETE, w);
+            REMOVED.increment();
+            events.publish(WorkoutEvent.removed(w));
+            return true;
+        }
+    }
+    // Replaces the workout with this id by a new one with these fields (and the same id), returns
+    // false if there's none. The old object is left as it was, so readers never see half a change.
+    public boolean update(long id, String name, Date date, int duration, String desc, String notes) {
+        synchronized (writeLock) {
+            Workout old = byId.get(id);
+            if (old == null) return false;
+            Workout w = new Workout(id, name, date, duration, desc, notes);
+            change(old, w);
+            append(OP_UPDATE, w);
+            UPDATED.increment();
+            events.publish(WorkoutEvent.updated(w));
+            return true;
+        }
+    }
+    // Returns the workout with this id, or null
+    public Workout get(long id) {
+        return byId.get(id);
+    }
+    // Returns the log as primitive columns in date order, for totals and stats. The same copy is
+    // handed out until the next write, so asking again is free.
+    public WorkoutColumns getColumns() {
+        WorkoutColumns c = columns;
+        if (c != null) return c;
+        synchronized (writeLock) {
+            if (columns == null) columns = WorkoutColumns.of(byDate.values());
+            return columns;
+        }
+    }
+    // Turns write-behind on or off (turning it off writes out anything queued first)
+    public void setWriteBehind(boolean on) {
+        synchronized (flushLock) {
+            synchronized (writeLock) {
+                if (!on) writePending();
+                writeBehind = on;
+            }
+        }
+    }
+
+    // Whether there are journal records waiting for flush()
+    public boolean hasPendingWrites() {
+        synchronized (writeLock) {
+            return pending.size() > 0;
+        }
+    }
+
+    // Writes all queued journal records to disk with a single sync. Writers are only held up
+    // while the queue is handed over, not while it's written.
+    public void flush() {
+        synchronized (flushLock) {
+            byte[] batch;
+            synchronized (writeLock) {
+                if (pending.size() == 0) return;
+                batch = pending.toByteArray();
+                pending.reset();
+            }
+            try {
+                writeJournal(batch);
+            } catch (IOException e) {
+                System.err.println("Error saving workouts: " + e.getMessage());
+                // Put them back in front of anything queued since, so the next flush tries again
+                synchronized (writeLock) {
+                    byte[] newer = pending.toByteArray();
+                    pending.reset();
+                    pending.write(batch, 0, batch.length);
+                    pending.write(newer, 0, newer.length);
+                }
+            }
+        }
+    }
+
+    // Reads the snapshot and journal again (e.g. after they were changed outside the app)
+    public void reload() {
+        synchronized (flushLock) {
+            synchronized (writeLock) {
+                writePending();
+                try {
+                    if (journal != null) journal.close(); // reopened at the (possibly new) end of the file
+                } catch (IOException e) {
+                    System.err.println("Error closing workout journal: " + e.getMessage());
+                }
+                journal = null;
+                load();
+            }
+        }
+    }
+    // Where changes to the log are published (events are published in the order the writes happened)
+    public WorkoutEventBus getEvents() {
+        return events;
+    }
+    // Starts sending change events to 'listener' on 'executor' and returns every workout as of that
+    // moment. Both happen under the write lock, so each change is either in the list or in an event.
+    public List<Workout> subscribe(WorkoutEventBus.Listener listener, Executor executor) {
+        synchronized (writeLock) {
+            events.subscribe(listener, executor);
+            return getAll();
+        }
+    }
+    // Returns a copy of all workouts
+    public List<Workout> getAll() {
+        return new ArrayList<>(workouts.values());
+    }
+    // Returns workouts within a date range (inclusive), oldest first
+    public List<Workout> getByDate(Date start, Date end) {
+        if (start.after(end)) return new ArrayList<>();
+        return new ArrayList<>(byDate.subMap(DateKey.first(start.getTime()), true, DateKey.last(end.getTime()), true).values());
+    }
+    // Returns the most recent 'count' workouts, sorted by date (newest first)
+    public List<Workout> getRecent(int count) {
+        List<Workout> res = new ArrayList<>();
+        for (Workout w : byDate.descendingMap().values()) {
+            if (res.size() >= count) break;
+            res.add(w);
+        }
+        return res;
+    }
+
+    // Folds the journal into a fresh snapshot file and starts a fresh journal.
+    // The snapshot is written to a temp file and moved into place, so a crash leaves either
+    // the old snapshot plus the full journal or the new snapshot (which remembers the journal
+    // sequence it covers, so replaying the old journal on top of it is harmless).
+    // Writers only wait while the workouts are copied and while the fresh journal is swapped in,
+    // not while the snapshot is written; readers never wait.
+    public void compact() {
+        synchronized (flushLock) {
+            List<Workout> copy;
+            long coveredSeq;
+            int coveredRecords;
+            int coveredPending;
+            long coveredBytes;
+            synchronized (writeLock) {
+                compactionQueued = false;
+                if (journalRecords == 0) return;
+                try {
+                    coveredBytes = journalChannel().size();
+                } catch (IOException e) {
+                    System.err.println("Error compacting workout journal: " + e.getMessage());
+                    return;
+                }
+                copy = new ArrayList<>(workouts.values());
+                coveredSeq = journalSeq;
+                coveredRecords = journalRecords;
+                coveredPending = pending.size();
+            }
+            long start = System.nanoTime();
+            Path freshFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+            try {
+                writeSnapshot(copy, coveredSeq);
+                // The fresh journal holds the records written since the copy: most of them now...
+                long copied;
+                try (FileChannel fresh = FileChannel.open(freshFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    copied = copyJournal(coveredBytes, fresh);
+                }
+                synchronized (writeLock) {
+                    // ...and the few that came in meanwhile, before it takes the old journal's place
+                    try (FileChannel fresh = FileChannel.open(freshFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        copyJournal(coveredBytes + copied, fresh);
+                        fresh.force(true);
+                    }
+                    journal.close();
+                    journal = null; // reopened on the fresh file
+                    replace(freshFile, journalFile);
+                    snapshotSeq = coveredSeq;
+                    journalRecords -= coveredRecords;
+                    // Queued records from before the copy are part of the new snapshot
+                    byte[] newer = pending.toByteArray();
+                    pending.reset();
+                    pending.write(newer, coveredPending, newer.length - coveredPending);
+                }
+            } catch (IOException e) {
+                System.err.println("Error compacting workout journal: " + e.getMessage());
+            } finally {
+                COMPACT_TIME.recordSince(start);
+            }
+        }
+    }
+
+    // Loads the snapshot into memory and then replays the journal on top of it
+    private void load() {
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            workouts.clear(); // clear existing workouts so it only loads whats in the files
+            byDate.clear();
+            byId.clear();
+            dateKeys.clear();
+            nextId = 1;
+            journalSeq = 0;
+            snapshotSeq = 0;
+            journalRecords = 0;
+            loadSnapshot();
+            journalSeq = snapshotSeq;
+            replayJournal();
+            LOAD_TIME.recordSince(start);
+            if (events.hasSubscribers()) events.publish(WorkoutEvent.bulkLoaded(getAll()));
+        }
+    }
+
+    // Loads workouts from the snapshot file into memory
+    private void loadSnapshot() {
+        try {
+            WorkoutFormat.Snapshot snapshot = format.read(file.toFile());
+            for (Workout w : snapshot.getWorkouts()) insert(w);
+            snapshotSeq = snapshot.getJournalSeq();
+        } catch (IOException e) {
+            System.err.println("Error loading workouts: " + e.getMessage());
+        }
+    }
+
+    // Replays every intact journal record written after the snapshot.
+    // A torn last record (the app died halfway through writing it) fails its checksum
+    // and gets cut off the end of the file so later appends start on a clean line.
+    private void replayJournal() {
+        if (!Files.exists(journalFile)) return;
+        try {
+            byte[] data = Files.readAllBytes(journalFile);
+            int start = 0;
+            int validEnd = 0;
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] != '\n') continue;
+                String line = new String(data, start, i - start, StandardCharsets.UTF_8);
+                start = i + 1;
+                if (line.isEmpty()) { validEnd = start; continue; }
+                if (!replayRecord(line)) break; // anything after a corrupt record can't be trusted
+                validEnd = start;
+            }
+            if (validEnd < data.length) {
+                System.err.println("Discarding " + (data.length - validEnd) + " bytes of incomplete workout journal");
+                journalChannel().truncate(validEnd);
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying workout journal: " + e.getMessage());
+        }
+    }
+
+    // Applies one journal line, returns false if the line is damaged
+    private boolean replayRecord(String line) {
+        int bar = line.indexOf('|');
+        if (bar <= 0) return false;
+        String body = line.substring(bar + 1);
+        if (!line.substring(0, bar).equals(checksum(body))) return false;
+        String[] p = body.split("\\|", 3); // seq | op | workout line
+        if (p.length < 3) return false;
+        long seq;
+        try {
+            seq = Long.parseLong(p[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        Workout w = lineFormat.parseLine(p[2]);
+        if (w == null) return false;
+        journalRecords++;
+        journalSeq = Math.max(journalSeq, seq);
+        if (seq <= snapshotSeq) return true; // already part of the snapshot
+        if (OP_ADD.equals(p[1])) {
+            insert(w);
+        } else if (OP_DELETE.equals(p[1])) {
+            if (w.getId() != 0) {
+                delete(w.getId());
+            } else { // tombstone from before workouts had ids
+                long t = w.getDate().getTime();
+                for (Workout old : byDate.subMap(DateKey.first(t), true, DateKey.last(t), true).values()) {
+                    if (sameRecord(old, w)) { delete(old.getId()); break; }
+                }
+            }
+        } else if (OP_UPDATE.equals(p[1])) {
+            Workout old = byId.get(w.getId());
+            if (old != null) change(old, w);
+        }
+        return true;
+    }
+
+    // Puts a workout in the insertion-order map, the date index and the id index.
+    // Workouts without an id get the next one; ids from files are kept, unless another workout
+    // already has that id, which then keeps it and the newcomer gets a fresh one.
+    private void insert(Workout w) {
+        columns = null;
+        Workout existing = w.getId() == 0 ? null : byId.get(w.getId());
+        if (w.getId() == 0 || (existing != null && existing != w)) w.setId(nextId++);
+        else nextId = Math.max(nextId, w.getId() + 1);
+        if (existing == w) delete(w.getId()); // the same workout added again, don't keep it twice
+        DateKey key = new DateKey(w.getDate().getTime(), indexSeq++);
+        dateKeys.put(w.getId(), key);
+        workouts.put(key.seq, w);
+        byDate.put(key, w);
+        byId.put(w.getId(), w);
+    }
+
+    // Takes a workout out of all maps, returns it (or null if it wasn't there)
+    private Workout delete(long id) {
+        columns = null;
+        DateKey key = dateKeys.remove(id);
+        if (key == null) return null;
+        byDate.remove(key);
+        workouts.remove(key.seq);
+        return byId.remove(id);
+    }
+
+    // Puts 'updated' in the place of 'old' (same id) in all maps, moving it in the date index if its date changed
+    private void change(Workout old, Workout updated) {
+        columns = null;
+        DateKey key = dateKeys.get(old.getId());
+        if (key.millis != updated.getDate().getTime()) {
+            DateKey moved = new DateKey(updated.getDate().getTime(), key.seq);
+            byDate.remove(key);
+            dateKeys.put(old.getId(), moved);
+            key = moved;
+        }
+        byDate.put(key, updated);
+        workouts.put(key.seq, updated);
+        byId.put(old.getId(), updated);
+    }
+
+    // Appends one record to the journal (or the write-behind queue), and queues a compaction
+    // once the journal gets long
+    private void append(String op, Workout w) {
+        String body = (journalSeq + 1) + "|" + op + "|" + lineFormat.formatLine(w);
+        byte[] bytes = (checksum(body) + "|" + body + "\n").getBytes(StandardCharsets.UTF_8);
+        if (writeBehind) {
+            pending.write(bytes, 0, bytes.length);
+        } else {
+            try {
+                writeJournal(bytes);
+            } catch (IOException e) {
+                System.err.println("Error saving workouts: " + e.getMessage());
+                return;
+            }
+        }
+        journalSeq++;
+        journalRecords++;
+        if (journalRecords >= COMPACT_THRESHOLD && !compactionQueued) {
+            compactionQueued = true;
+            compactor.execute(this::compact);
+        }
+    }
+
+    // Writes journal bytes at the end of the journal and syncs them
+    private void writeJournal(byte[] bytes) throws IOException {
+        long start = System.nanoTime();
+        try {
+            FileChannel ch = journalChannel();
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        } catch (IOException e) {
+            SAVE_ERRORS.increment();
+            throw e;
+        } finally {
+            JOURNAL_WRITE_TIME.recordSince(start);
+        }
+    }
+
+    // Writes out the write-behind queue while already holding writeLock (reload and turning write-behind off)
+    private void writePending() {
+        if (pending.size() == 0) return;
+        try {
+            writeJournal(pending.toByteArray());
+            pending.reset();
+        } catch (IOException e) {
+            System.err.println("Error saving workouts: " + e.getMessage());
+        }
+    }
+
+    // Writes the given workouts to a temp file and swaps it in place of the snapshot
+    private void writeSnapshot(List<Workout> all, long coveredSeq) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        format.write(tmp.toFile(), all, coveredSeq);
+        replace(tmp, file);
+    }
+
+    // Copies the journal from byte 'from' to its current end onto 'to', returns how many bytes that was
+    private long copyJournal(long from, FileChannel to) throws IOException {
+        try (FileChannel in = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            long size = in.size();
+            long pos = from;
+            while (pos < size) pos += in.transferTo(pos, size - pos, to);
+            return size - from;
+        }
+    }
+
+    // Moves 'tmp' over 'target' in one step where the file system allows it
+    static void replace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Opens the journal file the first time we need it
+    private FileChannel journalChannel() throws IOException {
+        if (journal == null) {
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            journal.position(journal.size());
+        }
+        return journal;
+    }
+
+    // Two workouts hold the same data (used to match tombstones on replay)
+    private static boolean sameRecord(Workout a, Workout b) {
+        return a.getDate().getTime() / 1000 == b.getDate().getTime() / 1000
+                && a.getDuration() == b.getDuration()
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getNotes(), b.getNotes());
+    }
+
+    // CRC32 of a journal record, in hex
+    private static String checksum(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    // Sort key for the date index: the workout's time, then the order it was added in
+    private static final class DateKey implements Comparable<DateKey> {
+        final long millis;
+        final long seq;
+
+        DateKey(long millis, long seq) {
+            this.millis = millis;
+            this.seq = seq;
+        }
+
+        // Lowest and highest possible keys for a given time, used as range bounds
+        static DateKey first(long millis) { return new DateKey(millis, Long.MIN_VALUE); }
+        static DateKey last(long millis) { return new DateKey(millis, Long.MAX_VALUE); }
+
+        @Override
+        public int compareTo(DateKey o) {
+            int c = Long.compare(millis, o.millis);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    // workouts.txt -> workouts.journal, workouts.bin -> workouts.bin.journal
+    // (so a text and a binary log side by side never share a journal)
+    static Path journalPathFor(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".txt")) name = name.substring(0, name.length() - 4);
+        return file.resolveSibling(name + ".journal");
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Date;
  * Represents a workout plan generated by the AI.
  */
 public class WorkoutPlan {
+    // Where the plan sits in the plan history (0 if it hasn't been stored there)
+    private long id;
     private String content;
     private Date created;
     private String goals;
@@ -25,6 +27,15 @@ public class WorkoutPlan {
         this.special = special;
     }
 
+    // For plans read back from storage, which already have an id and a creation time
+    public WorkoutPlan(long id, String content, Date created, String goals, String level,
+                       String time, String fav, String special) {
+        this(content, goals, level, time, fav, special);
+        this.id = id;
+        this.created = created;
+    }
+
+    public long getId() { return id; }
     public String getContent() { return content; }
     public Date getCreated() { return created; }
     public String getGoals() { return goals; }
@@ -0,0 +1,159 @@
+package model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The original pipe separated text format (workouts.txt), one workout per line.
+ * Stateless, so one instance can be shared between threads.
+ *
+ * Files that start with HEADER have escaped fields and an id column. Anything else (files from
+ * before the journal, or written by hand) is read the way the app used to write it: raw text,
+ * five fields, with any further | kept in the notes.
+ */
+public class WorkoutTextFormat implements WorkoutFormat {
+    // Header written at the top of the file; marks the file as being in the current format
+    public static final String HEADER = "# Workout Data - Format: Date|Name|Duration|Description|Notes|Id";
+    // Second header line that remembers which journal records are already folded into the snapshot
+    private static final String JOURNAL_MARK = "# Journal: ";
+    // Date format for saving, and a looser one for loading that also takes single digit fields
+    // (DateTimeFormatter is immutable, unlike SimpleDateFormat, so sharing it is safe)
+    private static final DateTimeFormatter WRITE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter READ_FORMAT = DateTimeFormatter.ofPattern("yyyy-M-d H:m:s");
+
+    @Override
+    public Snapshot read(File file) throws IOException {
+        List<Workout> workouts = new ArrayList<>();
+        long journalSeq = 0;
+        if (!file.exists()) return new Snapshot(workouts, journalSeq); // nothing saved yet
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            boolean current = false;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(JOURNAL_MARK)) {
+                    try {
+                        journalSeq = Long.parseLong(line.substring(JOURNAL_MARK.length()).trim());
+                    } catch (NumberFormatException e) {
+                        System.err.println("Error reading journal mark: " + line);
+                    }
+                    continue;
+                }
+                if (line.startsWith("#")) { // skips the header, after noting which format follows
+                    if (line.equals(HEADER)) current = true;
+                    continue;
+                }
+                if (line.trim().isEmpty()) continue; // skips empty lines
+                Workout w = current ? parseLine(line) : parseLegacyLine(line);
+                if (w != null) workouts.add(w);
+                else System.err.println("Error Integrating workout: " + line);
+            }
+        }
+        return new Snapshot(workouts, journalSeq);
+    }
+
+    @Override
+    public void write(File file, List<Workout> workouts, long journalSeq) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file);
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8)))) {
+            out.println(HEADER);
+            if (journalSeq > 0) out.println(JOURNAL_MARK + journalSeq);
+            for (Workout w : workouts) {
+                out.println(formatLine(w));
+            }
+            out.flush();
+            if (out.checkError()) throw new IOException("write failed for " + file);
+            fos.getFD().sync();
+        }
+    }
+
+    // Turns a Workout into one line of the text format (the id is left off if it has none yet)
+    public String formatLine(Workout w) {
+        String line = formatDate(w.getDate()) + "|" + escape(w.getName()) + "|" + w.getDuration() + "|"
+                + escape(w.getDescription()) + "|" + escape(w.getNotes());
+        return w.getId() != 0 ? line + "|" + w.getId() : line;
+    }
+
+    // Turns one line of the current format back into a Workout (null if it can't be read).
+    // Workouts saved before they had an id have 5 fields and come back with id 0.
+    public Workout parseLine(String line) {
+        String[] p = line.split("\\|", 6); // splits by |, max 6 parts
+        // if there are at least 5 parts, tries to place them into a Workout object
+        if (p.length < 5) return null;
+        try {
+            Date date = parseDate(p[0].trim());
+            String name = unescape(p[1].trim());
+            int duration = Integer.parseInt(p[2].trim());
+            String desc = unescape(p[3].trim());
+            String notes = unescape(p[4].trim());
+            long id = p.length == 6 ? Long.parseLong(p[5].trim()) : 0;
+            return new Workout(id, name, date, duration, desc, notes);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Reads a line as the app wrote it before escaping and ids: nothing is unescaped, and the
+    // notes are the rest of the line
+    Workout parseLegacyLine(String line) {
+        String[] p = line.split("\\|", 5); // splits by |, max 5 parts
+        if (p.length < 5) return null;
+        try {
+            return new Workout(p[1].trim(), parseDate(p[0].trim()), Integer.parseInt(p[2].trim()), p[3].trim(), p[4].trim());
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Formats a date in the local time zone, to the second
+    static String formatDate(Date date) {
+        return WRITE_FORMAT.format(LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+    }
+
+    // Parses a date written by formatDate (or by hand with single digit fields)
+    static Date parseDate(String s) {
+        return Date.from(LocalDateTime.parse(s, READ_FORMAT).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // Escapes the characters that would break a one-line record (line breaks, the | separator)
+    static String escape(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '|': sb.append("\\p"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Undoes escape(); unknown escapes are kept as they are
+    static String unescape(String s) {
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == s.length()) { sb.append(c); continue; }
+            char n = s.charAt(++i);
+            switch (n) {
+                case '\\': sb.append('\\'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 'p': sb.append('|'); break;
+                default: sb.append(c).append(n);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,663 @@
+package tests;
+
+import controller.WorkoutController;
+import model.Workout;
+import model.WorkoutManager;
+import model.WorkoutPlan;
+import model.AiClient;
+import model.CircuitBreaker;
+import model.GeminiJson;
+import model.HttpClientTransport;
+import model.LocalGeminiServer;
+import model.MappedWorkoutStore;
+import model.Metrics;
+import model.MetricsServer;
+import model.PlanBatch;
+import model.PlanCache;
+import model.PlanManager;
+import model.PlanRequest;
+import model.PlanStore;
+import model.RetryPolicy;
+import model.SingleFlight;
+import model.Tracer;
+import model.WorkoutBinaryFormat;
+import model.WorkoutColumns;
+import model.WorkoutEvent;
+import model.WorkoutTextFormat;
+import view.WorkoutTableModel;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+public class Tests {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Running tests...");
+
+        int count = 0;
+        int passed = 0;
+
+        // Prepare date and duration
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        Date date = sdf.parse("2025-06-15");
+        int duration = 30;
+
+        // Every check works in its own temp directory, never on the real workouts.txt
+        File tmpDir = Files.createTempDirectory("workout-tests").toFile();
+
+        // Test adding and retrieving a workout
+        count++;
+        WorkoutManager manager = new WorkoutManager(new File(tmpDir, "added.txt").getPath());
+        Workout w = new Workout("Test Workout", date, duration, "Push-ups", "Felt good");
+        manager.add(w);
+        boolean found = manager.getAll().stream().anyMatch(workout -> workout.getName().equals("Test Workout"));
+        if (found) passed++;
+        System.out.println("Add/Retrieve Workout: " + (found ? "SUCCESS" : "FAIL"));
+
+        // Test that adds and removes survive a reload through the journal, even with a torn last record
+        count++;
+        String tmpFile = new File(tmpDir, "workouts.txt").getPath();
+        WorkoutManager journaled = new WorkoutManager(tmpFile);
+        Workout keep = new Workout("Keep", date, duration, "Squats\nLine two", "a|b");
+        Workout drop = new Workout("Drop", date, duration, "Lunges", "");
+        journaled.add(keep);
+        journaled.add(drop);
+        journaled.remove(drop);
+        Files.write(new File(tmpDir, "workouts.journal").toPath(), "deadbeef|4|A|2025-06".getBytes(), StandardOpenOption.APPEND);
+        java.util.List<Workout> reloaded = new WorkoutManager(tmpFile).getAll();
+        boolean journalOk = reloaded.size() == 1 && reloaded.get(0).getName().equals("Keep")
+                && reloaded.get(0).getDescription().equals("Squats\nLine two") && reloaded.get(0).getNotes().equals("a|b");
+        if (journalOk) passed++;
+        System.out.println("Journal Replay: " + (journalOk ? "SUCCESS" : "FAIL"));
+
+        // Test that a file from before the journal is read as raw text, also after a compaction,
+        // and that two records with the same id both load
+        count++;
+        File legacyFile = new File(tmpDir, "legacy.txt");
+        Files.write(legacyFile.toPath(), java.util.Arrays.asList("# Workout Data - Format: Date|Name|Duration|Description|Notes",
+                "2025-06-15 10:00:00|Old|15|15 minutes|saved to C:\\new\\path",
+                "2025-06-16 10:00:00|Older|20|20 minutes|weight | 1"), StandardCharsets.UTF_8);
+        WorkoutManager legacyManager = new WorkoutManager(legacyFile.getPath());
+        legacyManager.compact();
+        java.util.List<Workout> legacyReloaded = new WorkoutManager(legacyFile.getPath()).getAll();
+        File clashFile = new File(tmpDir, "clash.txt");
+        Files.write(clashFile.toPath(), java.util.Arrays.asList(WorkoutTextFormat.HEADER,
+                "2025-06-15 10:00:00|One|15|15 minutes|a|7", "2025-06-16 10:00:00|Two|15|15 minutes|b|7"), StandardCharsets.UTF_8);
+        java.util.List<Workout> clash = new WorkoutManager(clashFile.getPath()).getAll();
+        boolean legacyOk = legacyReloaded.size() == 2 && legacyReloaded.get(0).getNotes().equals("saved to C:\\new\\path")
+                && legacyReloaded.get(1).getNotes().equals("weight | 1")
+                && legacyManager.getAll().get(0).getNotes().equals("saved to C:\\new\\path")
+                && clash.size() == 2 && clash.get(0).getId() != clash.get(1).getId();
+        if (legacyOk) passed++;
+        System.out.println("Legacy File: " + (legacyOk ? "SUCCESS" : "FAIL"));
+
+        // Test stable ids: lookup, update and delete by id survive the journal and a compaction
+        count++;
+        String idFile = new File(tmpDir, "ids.txt").getPath();
+        WorkoutManager idManager = new WorkoutManager(idFile);
+        Workout firstWorkout = new Workout("First", date, 10, "10 minutes", "");
+        Workout secondWorkout = new Workout("Second", date, 20, "20 minutes", "");
+        Workout thirdWorkout = new Workout("Third", date, 30, "30 minutes", "");
+        idManager.add(firstWorkout);
+        idManager.add(secondWorkout);
+        idManager.add(thirdWorkout);
+        Date later = sdf.parse("2025-07-01");
+        boolean updated = idManager.update(secondWorkout.getId(), "Second (edited)", later, 25, "25 minutes", "longer");
+        boolean removed = idManager.remove(firstWorkout.getId()) && !idManager.remove(firstWorkout.getId());
+        WorkoutManager idReplayed = new WorkoutManager(idFile);
+        idManager.compact();
+        WorkoutManager idCompacted = new WorkoutManager(idFile);
+        Workout legacy = new WorkoutTextFormat().parseLine("2025-06-15 10:00:00|Old|15|15 minutes|notes");
+        boolean idsOk = updated && removed && firstWorkout.getId() != secondWorkout.getId() && idManager.get(firstWorkout.getId()) == null
+                && idManager.getRecent(1).get(0) == idManager.get(secondWorkout.getId()) && secondWorkout.getName().equals("Second")
+                && idReplayed.get(secondWorkout.getId()).getName().equals("Second (edited)") && idReplayed.get(secondWorkout.getId()).getDate().equals(later)
+                && idReplayed.getAll().size() == 2
+                && idCompacted.get(thirdWorkout.getId()).getName().equals("Third") && idCompacted.get(firstWorkout.getId()) == null
+                && legacy != null && legacy.getId() == 0;
+        if (idsOk) passed++;
+        System.out.println("Stable Workout Ids: " + (idsOk ? "SUCCESS" : "FAIL"));
+
+        // Test write-behind: changes are visible at once but only reach the disk on flush
+        count++;
+        String behindFile = new File(tmpDir, "behind.txt").getPath();
+        WorkoutManager behind = new WorkoutManager(behindFile);
+        behind.setWriteBehind(true);
+        for (int i = 0; i < 3; i++) behind.add(new Workout("Queued " + i, date, 10, "10 minutes", ""));
+        boolean visibleBeforeFlush = behind.getAll().size() == 3 && behind.hasPendingWrites();
+        boolean notOnDiskYet = new WorkoutManager(behindFile).getAll().isEmpty();
+        behind.flush();
+        boolean flushedOk = !behind.hasPendingWrites() && new WorkoutManager(behindFile).getAll().size() == 3;
+        behind.add(new Workout("Compacted while queued", date, 10, "10 minutes", ""));
+        behind.compact();
+        behind.add(new Workout("Queued after compaction", date, 10, "10 minutes", ""));
+        behind.flush();
+        boolean behindOk = visibleBeforeFlush && notOnDiskYet && flushedOk
+                && new WorkoutManager(behindFile).getAll().size() == 5;
+        if (behindOk) passed++;
+        System.out.println("Write-Behind: " + (behindOk ? "SUCCESS" : "FAIL"));
+
+        // Test the columnar copy: name codes, range totals, and reuse until the next write
+        count++;
+        WorkoutManager columnar = new WorkoutManager(new File(tmpDir, "columns.txt").getPath());
+        columnar.add(new Workout("Run", sdf.parse("2025-05-01"), 30, "30 minutes", ""));
+        columnar.add(new Workout("Swim", sdf.parse("2025-05-03"), 45, "45 minutes", ""));
+        columnar.add(new Workout("Run", sdf.parse("2025-05-02"), 20, "20 minutes", ""));
+        WorkoutColumns cols = columnar.getColumns();
+        long may1 = sdf.parse("2025-05-01").getTime(), may2 = sdf.parse("2025-05-02").getTime();
+        int run = cols.codeOf("Run");
+        boolean columnsOk = cols.size() == 3 && cols.nameCount() == 2 && cols.getName(1).equals("Run") && cols.getDuration(1) == 20
+                && cols.totalDuration() == 95 && cols.totalDuration(may1, may2) == 50 && cols.count(may2, Long.MAX_VALUE) == 2
+                && cols.durationByName(Long.MIN_VALUE, Long.MAX_VALUE)[run] == 50 && cols.countByName(may1, may2)[run] == 2
+                && columnar.getColumns() == cols;
+        columnar.add(new Workout("Row", sdf.parse("2025-05-04"), 15, "15 minutes", ""));
+        columnsOk = columnsOk && columnar.getColumns() != cols && columnar.getColumns().size() == 4;
+        if (columnsOk) passed++;
+        System.out.println("Columnar Snapshot: " + (columnsOk ? "SUCCESS" : "FAIL"));
+
+        // Test the date index behind range and recent lookups
+        count++;
+        WorkoutManager indexed = new WorkoutManager(new File(tmpDir, "indexed.txt").getPath());
+        for (int day = 1; day <= 5; day++) {
+            indexed.add(new Workout("Day " + day, sdf.parse("2025-06-0" + day), duration, "Run", ""));
+        }
+        java.util.List<Workout> range = indexed.getByDate(sdf.parse("2025-06-02"), sdf.parse("2025-06-04"));
+        java.util.List<Workout> recent = indexed.getRecent(2);
+        boolean indexOk = range.size() == 3 && range.get(0).getName().equals("Day 2")
+                && recent.size() == 2 && recent.get(0).getName().equals("Day 5") && recent.get(1).getName().equals("Day 4");
+        if (indexOk) passed++;
+        System.out.println("Date Index: " + (indexOk ? "SUCCESS" : "FAIL"));
+
+        // Test concurrent writers and readers on one manager, with compactions running alongside
+        count++;
+        String concurrentFile = new File(tmpDir, "concurrent.txt").getPath();
+        WorkoutManager shared = new WorkoutManager(concurrentFile);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            final int id = t;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 250; i++) {
+                    shared.add(new Workout("W" + id + "-" + i, new Date(1_700_000_000_000L + i * 60_000L), i, "Row", ""));
+                    shared.getRecent(5);
+                }
+            });
+            writers[t].start();
+        }
+        Thread compacting = new Thread(() -> {
+            while (writers[writers.length - 1].isAlive()) shared.compact();
+        });
+        compacting.start();
+        for (Thread t : writers) t.join();
+        compacting.join();
+        shared.compact(); // settle the background compaction before opening the file again
+        boolean concurrentOk = shared.getAll().size() == 1000 && new WorkoutManager(concurrentFile).getAll().size() == 1000;
+        if (concurrentOk) passed++;
+        System.out.println("Concurrent Writers: " + (concurrentOk ? "SUCCESS" : "FAIL"));
+
+        // Test converting the text log to the binary format and back without losing anything
+        count++;
+        File textIn = new File(tmpDir, "export-in.txt");
+        File binary = new File(tmpDir, "export.bin");
+        File textOut = new File(tmpDir, "export-out.txt");
+        Files.write(textIn.toPath(), java.util.Arrays.asList(WorkoutTextFormat.HEADER,
+                "2025-06-15 07:30:00|Bench|45|3 sets × 8 reps|Felt strong|1",
+                "2025-06-16 18:00:00|Run|30|30 minutes|Line one\\nLine two|2"), StandardCharsets.UTF_8);
+        WorkoutBinaryFormat.importText(textIn, binary);
+        WorkoutBinaryFormat.exportText(binary, textOut);
+        java.util.List<Workout> fromBinary = new WorkoutManager(binary.getPath()).getAll();
+        File journaledIn = new File(tmpDir, "journaled-in.txt");
+        File journaledBinary = new File(tmpDir, "journaled.bin");
+        WorkoutManager journaledLog = new WorkoutManager(journaledIn.getPath());
+        for (int i = 0; i < 5; i++) journaledLog.add(new Workout("Journaled " + i, date, 10, "10 minutes", ""));
+        WorkoutBinaryFormat.importText(journaledIn, journaledBinary);
+        WorkoutManager journaledCopy = new WorkoutManager(journaledBinary.getPath());
+        journaledCopy.add(new Workout("After import", date, 10, "10 minutes", ""));
+        boolean binaryOk = WorkoutBinaryFormat.isBinary(binary)
+                && Files.readAllLines(textIn.toPath(), StandardCharsets.UTF_8).equals(Files.readAllLines(textOut.toPath(), StandardCharsets.UTF_8))
+                && fromBinary.size() == 2 && fromBinary.get(1).getNotes().equals("Line one\nLine two")
+                && new WorkoutManager(journaledBinary.getPath()).getAll().size() == 6
+                && !new File(textOut.getPath() + ".tmp").exists();
+        // Exporting a damaged file fails and leaves the old export alone
+        File damaged = new File(tmpDir, "damaged.bin");
+        byte[] damagedBytes = Files.readAllBytes(binary.toPath());
+        damagedBytes[damagedBytes.length - 1] ^= 1; // flip a bit of the checksum
+        Files.write(damaged.toPath(), damagedBytes);
+        try {
+            WorkoutBinaryFormat.exportText(damaged, textOut);
+            binaryOk = false;
+        } catch (java.io.IOException e) {
+            binaryOk = binaryOk && Files.readAllLines(textOut.toPath(), StandardCharsets.UTF_8).size() == 3;
+        }
+        if (binaryOk) passed++;
+        System.out.println("Binary Format Round Trip: " + (binaryOk ? "SUCCESS" : "FAIL"));
+
+        // Test reading the binary file through the memory-mapped store, directly and as a WorkoutManager's log
+        count++;
+        boolean mappedOk;
+        try (MappedWorkoutStore store = MappedWorkoutStore.open(binary)) {
+            mappedOk = store.size() == 2 && store.getDuration(0) == 45 && store.verifyChecksum()
+                    && store.get(1).getName().equals("Run") && store.getNotes(1).equals("Line one\nLine two");
+        }
+        // A .bin log loads through the mapping, takes journal records on top and compacts over the mapped file
+        WorkoutManager mappedLog = new WorkoutManager(binary.getPath());
+        mappedLog.add(new Workout("Row", date, 20, "20 minutes", ""));
+        mappedLog.update(1, "Bench (heavy)", mappedLog.get(1).getDate(), 50, "3 sets × 5 reps", "");
+        mappedLog.compact();
+        java.util.List<Workout> mappedReloaded = new WorkoutManager(binary.getPath()).getAll();
+        mappedOk = mappedOk && mappedReloaded.size() == 3 && mappedReloaded.get(0).getName().equals("Bench (heavy)")
+                && mappedReloaded.get(1).getNotes().equals("Line one\nLine two") && mappedReloaded.get(2).getName().equals("Row");
+        if (mappedOk) passed++;
+        System.out.println("Memory-Mapped Store: " + (mappedOk ? "SUCCESS" : "FAIL"));
+
+        // Test the plan cache: normalized keys, LRU eviction and the disk copy
+        count++;
+        File cacheDir = new File(tmpDir, "plan-cache");
+        PlanCache cache = new PlanCache(2, 60_000, cacheDir);
+        String key = AiClient.requestKey("Build Muscle", "Beginner", "3 hours", "", "");
+        cache.put(key, "Plan A");
+        cache.put(AiClient.requestKey("Run", "Beginner", "1 hour", "", ""), "Plan B");
+        cache.put(AiClient.requestKey("Swim", "Beginner", "1 hour", "", ""), "Plan C"); // pushes Plan A out of memory
+        boolean cacheOk = key.equals(AiClient.requestKey("  build   muscle ", "beginner", "3 Hours", "", ""))
+                && cache.getEvictions() == 1
+                && "Plan A".equals(cache.get(key)) && cache.getDiskHits() == 1
+                && cache.get(AiClient.requestKey("Yoga", "Beginner", "1 hour", "", "")) == null && cache.getMisses() == 1;
+        if (cacheOk) passed++;
+        System.out.println("Plan Cache: " + (cacheOk ? "SUCCESS" : "FAIL"));
+
+        // Test pulling the plan text out of canned Gemini responses
+        count++;
+        String canned = "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"Day 1:\\n\\\"Squats\\\" 3\\u00d78 \\u2013 legs\\\\\"},"
+                + " {\"text\": \" \\ud83d\\udcaa\"}], \"role\": \"model\"}, \"finishReason\": \"STOP\","
+                + " \"safetyRatings\": [{\"category\": \"HARM\", \"blocked\": false, \"score\": -1.5e3}]},"
+                + " {\"content\": {\"parts\": [{\"text\": \"second candidate\"}]}}],"
+                + " \"usageMetadata\": {\"promptTokenCount\": 120, \"extra\": null}}";
+        String streamed = "[{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"Hello \"}]}}]},"
+                + "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"world\"}]}}]}]";
+        String tricky = "Tab\there, quote \" backslash \\ bell \u0007 and é";
+        String echoed = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":" + GeminiJson.quote(tricky) + "}]}}]}";
+        boolean jsonOk = "Day 1:\n\"Squats\" 3×8 – legs\\ \uD83D\uDCAA".equals(GeminiJson.extractText(new StringReader(canned)))
+                && "Hello world".equals(GeminiJson.extractText(new StringReader(streamed)))
+                && tricky.equals(GeminiJson.extractText(new StringReader(echoed)))
+                && GeminiJson.extractText(new StringReader("{\"error\": {\"code\": 429}}")) == null;
+        if (jsonOk) passed++;
+        System.out.println("Gemini JSON Parsing: " + (jsonOk ? "SUCCESS" : "FAIL"));
+
+        // Test AiClient end to end against the local stand-in server (blocking and streaming)
+        count++;
+        boolean localOk;
+        try (LocalGeminiServer server = new LocalGeminiServer("Day 1: Squats 3x10\nDay 2: Rest", 5)) {
+            server.setChunkDelayMillis(1);
+            AiClient local = new AiClient("test-key", new PlanCache(8, 60_000), new HttpClientTransport(), server.getBaseUrl());
+            String blocking = local.generateWorkoutPlan("Strength", "Beginner", "2 hours", "", "");
+            StringBuilder pieces = new StringBuilder();
+            java.util.List<String> deltas = new java.util.ArrayList<>();
+            String streamedPlan = local.generateWorkoutPlanStreaming("Endurance", "Beginner", "2 hours", "", "", d -> {
+                deltas.add(d);
+                pieces.append(d);
+            });
+            local.generateWorkoutPlan("strength", "beginner", "2  hours", "", ""); // cached, no request
+            localOk = blocking.equals("Day 1: Squats 3x10\nDay 2: Rest") && streamedPlan.equals(blocking)
+                    && pieces.toString().equals(blocking) && deltas.size() > 1 && server.getRequestCount() == 2;
+        }
+        if (localOk) passed++;
+        System.out.println("AiClient Against Local Server: " + (localOk ? "SUCCESS" : "FAIL"));
+
+        // Test the overall timeout ending a read that is stuck on a stalled body
+        count++;
+        boolean deadlineOk = false;
+        try (LocalGeminiServer server = new LocalGeminiServer("Day 1: Squats 3x10\nDay 2: Rest", 0)) {
+            server.setChunkDelayMillis(10_000);
+            HttpClientTransport quick = new HttpClientTransport(java.time.Duration.ofSeconds(5), java.time.Duration.ofSeconds(5), java.time.Duration.ofMillis(500));
+            long readStart = System.nanoTime();
+            try (model.AiTransport.Response stalled = quick.post(java.net.URI.create(server.getBaseUrl() + "test:streamGenerateContent"), "{}")) {
+                stalled.readBody();
+            } catch (java.net.http.HttpTimeoutException e) {
+                deadlineOk = System.nanoTime() - readStart < 3_000_000_000L;
+            }
+        }
+        if (deadlineOk) passed++;
+        System.out.println("Overall Timeout On A Stalled Body: " + (deadlineOk ? "SUCCESS" : "FAIL"));
+
+        // Test retries on 503s, then the breaker opening and serving an expired plan while it's open
+        count++;
+        boolean breakerOk;
+        try (LocalGeminiServer server = new LocalGeminiServer("Day 1: Rows 4x8", 0)) {
+            CircuitBreaker breaker = new CircuitBreaker(3, 60_000);
+            AiClient local = new AiClient("test-key", new PlanCache(8, 1), new HttpClientTransport(), server.getBaseUrl(),
+                    new RetryPolicy(3, 1, 10), breaker);
+            server.failNext(2, 503, 0);
+            String retried = local.generateWorkoutPlan("Back", "Beginner", "1 hour", "", "");
+            Thread.sleep(5); // let the cached plan expire
+            server.failNext(10, 429, 0);
+            String stale = local.generateWorkoutPlan("Back", "Beginner", "1 hour", "", "");
+            int requestsBefore = server.getRequestCount();
+            boolean rejected = false;
+            try {
+                local.generateWorkoutPlan("Legs", "Beginner", "1 hour", "", "");
+            } catch (CircuitBreaker.OpenException e) {
+                rejected = true;
+            }
+            breakerOk = retried.contains("Rows") && local.getRetries() >= 3 && stale.equals(retried)
+                    && breaker.getState() == CircuitBreaker.State.OPEN && breaker.getOpened() == 1
+                    && rejected && breaker.getRejected() == 1 && server.getRequestCount() == requestsBefore
+                    && RetryPolicy.parseRetryAfter("7") == 7000 && RetryPolicy.parseRetryAfter("soon") == -1;
+        }
+        // A transport that blows up with an unchecked exception still counts as a failed (trial) request
+        CircuitBreaker crashing = new CircuitBreaker(1, 0);
+        AiClient broken = new AiClient("test-key", new PlanCache(8, 60_000), (uri, json) -> { throw new IllegalStateException("transport bug"); },
+                "http://127.0.0.1:1/v1/models/", new RetryPolicy(1, 1, 10), crashing);
+        long reopensBefore = Metrics.counter("ai_breaker_reopened_total", "").get();
+        int crashes = 0;
+        for (int i = 0; i < 3; i++) {
+            try {
+                broken.generateWorkoutPlan("Arms " + i, "Beginner", "1 hour", "", "");
+            } catch (IllegalStateException e) {
+                crashes++;
+            }
+        }
+        breakerOk = breakerOk && crashes == 3 && crashing.getOpened() == 1 && crashing.getReopened() == 2
+                && Metrics.counter("ai_breaker_reopened_total", "").get() - reopensBefore == 2;
+        if (breakerOk) passed++;
+        System.out.println("Retry and Circuit Breaker: " + (breakerOk ? "SUCCESS" : "FAIL"));
+
+        // Test that identical requests in flight share one piece of work and its progress
+        count++;
+        SingleFlight<String, String, String> flights = new SingleFlight<>();
+        java.util.concurrent.CompletableFuture<String> work = new java.util.concurrent.CompletableFuture<>();
+        java.util.List<java.util.function.Consumer<String>> publishers = new java.util.ArrayList<>();
+        StringBuilder lateProgress = new StringBuilder();
+        java.util.concurrent.CompletableFuture<String> first = flights.run("same", null, publish -> {
+            publishers.add(publish);
+            return work;
+        });
+        publishers.get(0).accept("Day 1. ");
+        java.util.concurrent.CompletableFuture<String> second = flights.run("same", lateProgress::append, publish -> work);
+        java.util.concurrent.CompletableFuture<String> third = flights.run("same", null, publish -> work);
+        third.cancel(true); // one caller giving up doesn't stop the others
+        publishers.get(0).accept("Day 2.");
+        work.complete("Day 1. Day 2.");
+        boolean flightOk = first.get().equals("Day 1. Day 2.") && second.get().equals("Day 1. Day 2.")
+                && lateProgress.toString().equals("Day 1. Day 2.") && !work.isCancelled()
+                && flights.getStarted() == 1 && flights.getCoalesced() == 2 && flights.getInFlight() == 0;
+        if (flightOk) passed++;
+        System.out.println("Request Coalescing: " + (flightOk ? "SUCCESS" : "FAIL"));
+
+        // Test batch generation: plans run side by side, duplicates share a request, each plan is saved
+        count++;
+        boolean batchOk;
+        try (LocalGeminiServer server = new LocalGeminiServer("Day 1: Lunges 3x12", 200)) {
+            AiClient local = new AiClient("test-key", new PlanCache(8, 60_000), new HttpClientTransport(), server.getBaseUrl());
+            java.util.List<PlanRequest> clients = new java.util.ArrayList<>();
+            for (int i = 0; i < 6; i++) clients.add(new PlanRequest("Goal " + i, "Beginner", "3 hours", "", ""));
+            clients.add(new PlanRequest("Goal 0", "Beginner", "3 hours", "", ""));
+            File batchDir = new File(tmpDir, "batch");
+            java.util.concurrent.atomic.AtomicInteger reported = new java.util.concurrent.atomic.AtomicInteger();
+            long batchStart = System.nanoTime();
+            java.util.List<WorkoutPlan> plans = new PlanBatch(local, 8, 0, 10, java.util.concurrent.TimeUnit.SECONDS)
+                    .run(clients, batchDir, new PlanBatch.Listener() {
+                        public void onPlan(int index, PlanRequest request, WorkoutPlan p) {
+                            reported.incrementAndGet();
+                            if (index == 3) throw new IllegalStateException("listener bug"); // mustn't hang the batch
+                        }
+                        public void onError(int index, PlanRequest request, Throwable error) { }
+                    }).get(10, java.util.concurrent.TimeUnit.SECONDS);
+            long batchMillis = (System.nanoTime() - batchStart) / 1_000_000;
+            batchOk = plans.size() == 7 && plans.stream().allMatch(p -> p != null && p.getContent().contains("Lunges"))
+                    && reported.get() == 7 && server.getRequestCount() == 6
+                    && new File(batchDir, "plan-7.txt").exists() && batchMillis < 6 * 200;
+        }
+        if (batchOk) passed++;
+        System.out.println("Batch Generation: " + (batchOk ? "SUCCESS" : "FAIL"));
+
+        // Test the plan history: ids, latest plan, metadata, and a torn write cut off on reopen
+        count++;
+        String historyFile = new File(tmpDir, "plans.dat").getPath();
+        PlanStore store = new PlanStore(historyFile);
+        WorkoutPlan firstPlan = store.save(new WorkoutPlan("Plan One", "Lose weight", "Beginner", "2 hours", "", ""));
+        WorkoutPlan secondPlan = store.save(new WorkoutPlan("Plan Two", "Build muscle", "Advanced", "5 hours", "Deadlifts", "Bad knee"));
+        store.close();
+        Files.write(Paths.get(historyFile), new byte[] {1, 2, 3}, StandardOpenOption.APPEND); // crash mid-save
+        PlanStore reopened = new PlanStore(historyFile);
+        WorkoutPlan one = reopened.get(1);
+        WorkoutPlan newest = reopened.getLatest();
+        WorkoutPlan thirdPlan = reopened.save(new WorkoutPlan("Plan Three", "Run a 5k", "Beginner", "3 hours", "", ""));
+        boolean historyOk = firstPlan.getId() == 1 && secondPlan.getId() == 2
+                && one.getContent().equals("Plan One") && one.getCreated().equals(firstPlan.getCreated())
+                && newest.getId() == 2 && newest.getSpecial().equals("Bad knee") && newest.getFav().equals("Deadlifts")
+                && thirdPlan.getId() == 3 && reopened.get(3).getContent().equals("Plan Three")
+                && reopened.getHistory(2).get(1).getContent().equals("Plan Two") && reopened.get(4) == null;
+        reopened.close();
+        if (historyOk) passed++;
+        System.out.println("Plan History: " + (historyOk ? "SUCCESS" : "FAIL"));
+
+        // Test change events: batched until the listener's executor runs, with add+remove coalesced away
+        count++;
+        WorkoutManager observed = new WorkoutManager(new File(tmpDir, "events.txt").getPath());
+        java.util.List<Runnable> deliveries = new java.util.ArrayList<>();
+        java.util.List<java.util.List<WorkoutEvent>> batches = new java.util.ArrayList<>();
+        observed.getEvents().subscribe(batches::add, deliveries::add);
+        Workout kept = new Workout("Plank", date, 5, "5 minutes", "");
+        Workout undone = new Workout("Oops", date, 1, "1 minutes", "");
+        observed.add(kept);
+        observed.add(undone);
+        observed.remove(undone);
+        deliveries.forEach(Runnable::run);
+        observed.reload();
+        deliveries.get(deliveries.size() - 1).run();
+        boolean eventsOk = deliveries.size() == 2 && batches.size() == 2
+                && batches.get(0).size() == 1 && batches.get(0).get(0).getType() == WorkoutEvent.Type.ADDED
+                && batches.get(0).get(0).getWorkout() == kept
+                && batches.get(1).get(0).getType() == WorkoutEvent.Type.BULK_LOADED && batches.get(1).get(0).getWorkouts().size() == 1;
+        // Subscribing returns the log as of that moment; an add and an update of it arrive as one add of the new copy
+        java.util.List<java.util.List<WorkoutEvent>> seen = new java.util.ArrayList<>();
+        java.util.List<Runnable> seenDeliveries = new java.util.ArrayList<>();
+        java.util.List<Workout> atSubscribe = observed.subscribe(seen::add, seenDeliveries::add);
+        Workout edited = new Workout("Side Plank", date, 5, "5 minutes", "");
+        observed.add(edited);
+        observed.update(edited.getId(), "Side Plank (left)", date, 5, "5 minutes", "");
+        seenDeliveries.forEach(Runnable::run);
+        eventsOk = eventsOk && atSubscribe.size() == 1 && seen.size() == 1 && seen.get(0).size() == 1
+                && seen.get(0).get(0).getType() == WorkoutEvent.Type.ADDED && seen.get(0).get(0).getWorkout().getName().equals("Side Plank (left)");
+        if (eventsOk) passed++;
+        System.out.println("Change Events: " + (eventsOk ? "SUCCESS" : "FAIL"));
+
+        // Test the tracker's table model: single-row events and cells formatted on demand
+        count++;
+        WorkoutTableModel tableModel = new WorkoutTableModel();
+        java.util.List<javax.swing.event.TableModelEvent> tableEvents = new java.util.ArrayList<>();
+        tableModel.addTableModelListener(tableEvents::add);
+        Workout squats = new Workout(7, "Squats", date, 10, "3 sets × 10 reps", "");
+        tableModel.setWorkouts(java.util.Arrays.asList(new Workout("Run", date, 30, "30 minutes", "Easy")));
+        tableModel.addWorkout(squats);
+        tableModel.removeWorkout(tableModel.getWorkoutAt(0));
+        boolean tableOk = tableModel.getRowCount() == 1 && tableModel.getWorkoutAt(0) == squats
+                && tableModel.getValueAt(0, 2).equals("3 sets × 10 reps") && tableModel.getValueAt(0, 0).equals("2025-06-15 00:00");
+        tableModel.updateWorkout(new Workout(7, "Front Squats", date, 10, "3 sets × 8 reps", ""));
+        tableModel.addWorkout(tableModel.getWorkoutAt(0)); // e.g. its add event arriving after a refresh that showed it
+        tableOk = tableOk && tableModel.getRowCount() == 1 && tableModel.getValueAt(0, 1).equals("Front Squats")
+                && tableEvents.size() == 5 && tableEvents.get(3).getType() == javax.swing.event.TableModelEvent.UPDATE
+                && tableEvents.get(4).getType() == javax.swing.event.TableModelEvent.UPDATE
+                && tableEvents.get(1).getType() == javax.swing.event.TableModelEvent.INSERT && tableEvents.get(1).getFirstRow() == 1
+                && tableEvents.get(2).getType() == javax.swing.event.TableModelEvent.DELETE && tableEvents.get(2).getFirstRow() == 0;
+        // Many adds and deletes in random places keep the rows in the same order as a plain list
+        WorkoutTableModel bigTable = new WorkoutTableModel();
+        java.util.List<Workout> expectedRows = new java.util.ArrayList<>();
+        java.util.Random tableRandom = new java.util.Random(42);
+        long nextTableId = 1;
+        for (int i = 0; i < 2000; i++) {
+            if (expectedRows.isEmpty() || tableRandom.nextInt(3) > 0) {
+                Workout added = new Workout(nextTableId++, "W" + i, date, 10, "10 minutes", "");
+                expectedRows.add(added);
+                bigTable.addWorkout(added);
+            } else {
+                bigTable.removeWorkout(expectedRows.remove(tableRandom.nextInt(expectedRows.size())));
+            }
+        }
+        for (int i = 0; i < 600; i++) bigTable.removeWorkout(expectedRows.remove(tableRandom.nextInt(expectedRows.size())));
+        boolean sameRows = bigTable.getRowCount() == expectedRows.size();
+        for (int row = 0; sameRows && row < expectedRows.size(); row++) sameRows = bigTable.getWorkoutAt(row) == expectedRows.get(row);
+        tableOk = tableOk && sameRows;
+        if (tableOk) passed++;
+        System.out.println("Workout Table Model: " + (tableOk ? "SUCCESS" : "FAIL"));
+
+        // Test metrics: timer percentiles, counters, and the Prometheus text served over HTTP
+        count++;
+        Metrics.Timer testTimer = Metrics.timer("test_seconds", "Test timer");
+        for (int i = 1; i <= 1000; i++) testTimer.record(i * 1_000_000L); // 1ms .. 1000ms
+        long p50 = testTimer.getPercentileNanos(0.5);
+        long p99 = testTimer.getPercentileNanos(0.99);
+        Metrics.counter("test_total", "Test counter").add(3);
+        long loadsBefore = Metrics.timer("workout_load_seconds", "").getCount();
+        new WorkoutManager(new File(tmpDir, "metrics.txt").getPath());
+        String scraped;
+        try (MetricsServer metricsServer = new MetricsServer(0)) {
+            java.net.HttpURLConnection conn = (java.net.HttpURLConnection)
+                    new java.net.URL("http://127.0.0.1:" + metricsServer.getPort() + "/metrics").openConnection();
+            scraped = new String(conn.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+        boolean metricsOk = p50 >= 500_000_000L && p50 <= 600_000_000L && p99 >= 990_000_000L && p99 <= 1_000_000_000L
+                && testTimer.getMaxNanos() == 1_000_000_000L
+                && Metrics.timer("workout_load_seconds", "").getCount() == loadsBefore + 1
+                && scraped.contains("# TYPE test_total counter\ntest_total 3\n")
+                && scraped.contains("test_seconds{quantile=\"0.99\"} ") && scraped.contains("test_seconds_count 1000\n")
+                && scraped.contains("test_seconds_max 1.0\n") && Metrics.dump().contains("test_seconds");
+        if (metricsOk) passed++;
+        System.out.println("Metrics: " + (metricsOk ? "SUCCESS" : "FAIL"));
+
+        // Test tracing: one JSON line per sampled call with its id and timed events, nothing when unsampled
+        count++;
+        java.io.StringWriter traceOut = new java.io.StringWriter();
+        model.TraceWriter traceWriter = new model.TraceWriter(traceOut, 16);
+        String[] traceLines;
+        try (LocalGeminiServer server = new LocalGeminiServer("Day 1: Lunges 3x12", 0)) {
+            AiClient traced = new AiClient("test-key", new PlanCache(8, 60_000), new HttpClientTransport(), server.getBaseUrl(),
+                    new RetryPolicy(3, 1, 10), new CircuitBreaker());
+            traced.setTracer(new Tracer(1.0, traceWriter));
+            server.failNext(1, 503, 0);
+            traced.generateWorkoutPlan("Legs", "Beginner", "20 min", "", "");
+            traced.generateWorkoutPlanStreaming("Legs", "Advanced", "20 min", "", "", text -> {});
+            traced.setTracer(new Tracer(0.0, traceWriter));
+            traced.generateWorkoutPlan("Arms", "Beginner", "20 min", "", "");
+        }
+        traceWriter.close();
+        traceLines = traceOut.toString().split("\n");
+        boolean tracingOk = traceLines.length == 2
+                && traceLines[0].matches("\\{\"trace\":\"ai.generate\",\"id\":\"[0-9a-f]{16}\",.*\"ok\":true,.*")
+                && traceLines[0].contains("\"stream\":false") && traceLines[0].contains("\"name\":\"failed\"")
+                && traceLines[0].contains("\"attempt\":2") && traceLines[0].contains("\"status\":200")
+                && traceLines[0].contains("\"name\":\"complete\"")
+                && traceLines[1].contains("\"stream\":true") && traceLines[1].contains("\"name\":\"first_text\"")
+                && !traceLines[0].substring(0, 60).equals(traceLines[1].substring(0, 60))
+                && traceWriter.getDropped() == 0;
+        // Closing writes everything accepted before it, and nothing is accepted after it
+        java.io.StringWriter closingOut = new java.io.StringWriter();
+        model.TraceWriter closingWriter = new model.TraceWriter(closingOut, 16);
+        int acceptedLines = 0;
+        for (int i = 0; i < 10; i++) if (closingWriter.offer("line " + i)) acceptedLines++;
+        closingWriter.close();
+        tracingOk = tracingOk && closingOut.toString().split("\n").length == acceptedLines
+                && !closingWriter.offer("too late") && closingWriter.getDropped() == 10 - acceptedLines + 1;
+        if (tracingOk) passed++;
+        System.out.println("Tracing: " + (tracingOk ? "SUCCESS" : "FAIL"));
+
+        // Test saving and loading a workout plan
+        count++;
+        WorkoutPlan plan = new WorkoutPlan("Plan Content", "Build muscle", "Beginner", "3 hours", "Push-ups", "");
+        PlanManager.savePlan(plan);
+        String loadedContent = PlanManager.loadPlanContent();
+        System.out.println("Loaded content: [" + loadedContent + "]");
+        boolean planMatch = loadedContent != null && loadedContent.trim().equals("Plan Content");
+        if (planMatch) passed++;
+        System.out.println("Save/Load Plan: " + (planMatch ? "SUCCESS" : "FAIL"));
+
+        // Test that reloading a plan file keeps the header, and that an unchanged file isn't parsed again
+        count++;
+        File planFile = new File(tmpDir, "plan.txt");
+        Files.write(planFile.toPath(), ("# WORKOUT PLAN\n# Generated: 2025-03-01 08:30:00\n# Goals: Run a 10k\n# Level: Intermediate\n"
+                + "# Time: 4 hours\n# Special: Asthma\n#\n# ========================\n\nWeek 1\n\nDay 1: Easy run\n").getBytes(StandardCharsets.UTF_8));
+        WorkoutPlan parsed = PlanManager.loadPlan(planFile);
+        boolean metaOk = parsed != null && parsed.getGoals().equals("Run a 10k") && parsed.getLevel().equals("Intermediate")
+                && parsed.getTime().equals("4 hours") && parsed.getFav().isEmpty() && parsed.getSpecial().equals("Asthma")
+                && new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(parsed.getCreated()).equals("2025-03-01 08:30:00") && parsed.getContent().equals("Week 1\n\nDay 1: Easy run")
+                && PlanManager.loadPlan(planFile) == parsed;
+        PlanManager.savePlan(new WorkoutPlan("Rest week", "Recover", "Beginner", "1 hour", "", ""), planFile);
+        WorkoutPlan resaved = PlanManager.loadPlan(planFile);
+        metaOk = metaOk && resaved.getContent().equals("Rest week") && resaved.getGoals().equals("Recover");
+        if (metaOk) passed++;
+        System.out.println("Plan Metadata Round Trip: " + (metaOk ? "SUCCESS" : "FAIL"));
+
+        // Test invalid input (empty workout name)
+        count++;
+        Workout invalid = new Workout("", date, duration, "Push-ups", "");
+        boolean validName = !invalid.getName().isEmpty();
+        if (!validName) passed++;
+        System.out.println("Invalid Input (Empty Name): " + (!validName ? "SUCCESS" : "FAIL"));
+
+        // Test controller integration (simple)
+        count++;
+        WorkoutController controller = WorkoutController.getInstance("YOUR_API_KEY");
+        // The workout log loads in the background; it has to finish on its own
+        boolean controllerExists = controller != null
+                && controller.whenWorkoutsLoaded().get(10, java.util.concurrent.TimeUnit.SECONDS) == null
+                && controller.getAllWorkouts() != null;
+        if (controllerExists) passed++;
+        System.out.println("Controller Instance: " + (controllerExists ? "SUCCESS" : "FAIL"));
+
+        // Test the controller's plan generation against the local stand-in for Gemini: identical
+        // requests share one AI call, streamed text shows up before the plan is done, and a plan
+        // that timed out is never saved
+        count++;
+        boolean generationOk;
+        try (LocalGeminiServer server = new LocalGeminiServer("Day 1: Rows 4x8\nDay 2: Rest\nDay 3: Deadlifts 3x5", 300)) {
+            controller.setAiClient(new AiClient("test-key", new PlanCache(8, 60_000), new HttpClientTransport(), server.getBaseUrl(),
+                    new RetryPolicy(1, 1, 10), new CircuitBreaker()));
+            java.util.concurrent.CompletableFuture<WorkoutPlan> firstAsk = controller.generateWorkoutPlanAsync("Back", "Beginner", "30 min", "", "");
+            java.util.concurrent.CompletableFuture<WorkoutPlan> secondAsk = controller.generateWorkoutPlanAsync("Back", "Beginner", "30 min", "", "");
+            WorkoutPlan coalesced = firstAsk.get(10, java.util.concurrent.TimeUnit.SECONDS);
+            generationOk = secondAsk.get(10, java.util.concurrent.TimeUnit.SECONDS).getId() == coalesced.getId()
+                    && server.getRequestCount() == 1 && controller.getCurrentPlan().getId() == coalesced.getId();
+
+            server.setChunkDelayMillis(50);
+            java.util.List<String> pieces = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+            java.util.concurrent.atomic.AtomicLong firstTextAt = new java.util.concurrent.atomic.AtomicLong();
+            java.util.concurrent.atomic.AtomicLong completedAt = new java.util.concurrent.atomic.AtomicLong();
+            java.util.concurrent.CompletableFuture<WorkoutPlan> streamedAsk = controller.generateWorkoutPlanStreaming("Back", "Advanced", "30 min", "", "",
+                    text -> {
+                        firstTextAt.compareAndSet(0, System.nanoTime());
+                        pieces.add(text);
+                    });
+            streamedAsk.whenComplete((p, e) -> completedAt.set(System.nanoTime()));
+            WorkoutPlan streamedPlan = streamedAsk.get(10, java.util.concurrent.TimeUnit.SECONDS);
+            generationOk = generationOk && pieces.size() > 1 && String.join("", pieces).equals(streamedPlan.getContent())
+                    && firstTextAt.get() != 0 && firstTextAt.get() < completedAt.get();
+
+            java.util.concurrent.CompletableFuture<WorkoutPlan> late = controller.generateWorkoutPlanAsync("Back", "Expert", "30 min", "", "",
+                    50, java.util.concurrent.TimeUnit.MILLISECONDS);
+            boolean timedOut;
+            try {
+                late.get(10, java.util.concurrent.TimeUnit.SECONDS);
+                timedOut = false;
+            } catch (java.util.concurrent.ExecutionException e) {
+                timedOut = e.getCause() instanceof java.util.concurrent.TimeoutException;
+            }
+            Thread.sleep(500); // past the stand-in's answer, had the generation carried on
+            generationOk = generationOk && timedOut && controller.getCurrentPlan().getId() == streamedPlan.getId()
+                    && controller.getPlanHistory(1).get(0).getId() == streamedPlan.getId();
+        }
+        if (generationOk) passed++;
+        System.out.println("Controller Plan Generation: " + (generationOk ? "SUCCESS" : "FAIL"));
+
+        // Summary
+        System.out.println("Total tests: " + count + ", Passed: " + passed);
+        if (count == passed) {
+            System.out.println("All tests passed!");
+        } else {
+            System.out.println("Some tests failed. Please check the output.");
+            System.exit(1); // so the build fails
+        }
+    }
+}